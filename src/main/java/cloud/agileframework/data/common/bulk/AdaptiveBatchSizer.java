@@ -0,0 +1,271 @@
+package cloud.agileframework.data.common.bulk;
+
+import cloud.agileframework.data.common.timeout.Deadline;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/01 14:08
+ * 描述 自适应批次大小，按实体类型记录每批次耗时与吞吐，将批次大小调向目标耗时区间，
+ * 并受绑定参数个数与数据包大小限制
+ * @version 1.0
+ * @since 1.0
+ */
+public class AdaptiveBatchSizer {
+    /**
+     * 吞吐平滑系数
+     */
+    private static final double SMOOTHING = 0.3;
+    /**
+     * 扩大批次后吞吐下降超过该比例时回退
+     */
+    private static final double REGRESSION = 0.9;
+
+    /**
+     * 单批次目标耗时下限，毫秒
+     */
+    private long targetMinMillis = 50;
+    /**
+     * 单批次目标耗时上限，毫秒
+     */
+    private long targetMaxMillis = 200;
+    /**
+     * 初始批次大小
+     */
+    private int initialSize = 1000;
+    /**
+     * 最小批次大小
+     */
+    private int minSize = 16;
+    /**
+     * 最大批次大小
+     */
+    private int maxSize = 10000;
+    /**
+     * 单条语句允许的绑定参数个数，mysql为65535
+     */
+    private int maxBindParameters = 65535;
+    /**
+     * 单个数据包允许的字节数，对应mysql的max_allowed_packet
+     */
+    private long maxPacketBytes = 4L << 20;
+
+    private final Map<Class<?>, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * 分批执行
+     *
+     * @param type        实体类型，批次大小按该类型记忆
+     * @param list        数据集合
+     * @param columnCount 每行字段个数，用于计算绑定参数上限
+     * @param rowBytes    估算的单行字节数，用于计算数据包上限，未知时传0
+     * @param batch       单批次执行逻辑，参数为本批数据与本批大小
+     * @param <T>         数据类型
+     * @param <E>         批次执行抛出的异常类型
+     * @throws E 批次执行异常
+     */
+    public <T, E extends Exception> void execute(Class<?> type, List<T> list, int columnCount, long rowBytes, Batch<T, E> batch) throws E {
+        int from = 0;
+        while (from < list.size()) {
+            Deadline.check();
+            int size = next(type, columnCount, rowBytes);
+            int to = Math.min(list.size(), from + size);
+            long start = System.nanoTime();
+            batch.apply(list.subList(from, to), size);
+            record(type, to - from, size, System.nanoTime() - start);
+            from = to;
+        }
+    }
+
+    /**
+     * 取实体类型当前的批次大小
+     *
+     * @param type        实体类型
+     * @param columnCount 每行字段个数
+     * @param rowBytes    估算的单行字节数，未知时传0
+     * @return 批次大小
+     */
+    public int next(Class<?> type, int columnCount, long rowBytes) {
+        State state = states.computeIfAbsent(type, k -> new State(initialSize));
+        synchronized (state) {
+            return Math.min(state.size, cap(columnCount, rowBytes));
+        }
+    }
+
+    /**
+     * 记录一个批次的执行结果并调整批次大小
+     *
+     * @param type      实体类型
+     * @param rows      本批实际行数
+     * @param requested 本批请求的批次大小
+     * @param nanos     本批耗时，纳秒
+     */
+    public void record(Class<?> type, int rows, int requested, long nanos) {
+        // 不满半批的尾批固定开销占比过高，不参与调整
+        if (rows <= 0 || nanos <= 0 || rows * 2 < requested) {
+            return;
+        }
+        State state = states.computeIfAbsent(type, k -> new State(initialSize));
+        double millis = nanos / 1e6;
+        double rowsPerSecond = rows * 1e9 / nanos;
+        synchronized (state) {
+            double previous = state.rowsPerSecond;
+            state.rowsPerSecond = previous == 0 ? rowsPerSecond : previous + SMOOTHING * (rowsPerSecond - previous);
+
+            int next = state.size;
+            if (millis > targetMaxMillis) {
+                next = Math.max(state.size / 2, (int) (rows * targetMaxMillis / millis));
+            } else if (millis < targetMinMillis) {
+                if (state.grown && previous > 0 && rowsPerSecond < previous * REGRESSION) {
+                    // 扩大批次没有换来吞吐，回退到上一个大小
+                    next = state.previousSize;
+                } else {
+                    next = Math.max(state.size, Math.min(state.size * 2, (int) (rows * targetMinMillis / Math.max(millis, 1)) + 1));
+                }
+            }
+            next = Math.max(minSize, Math.min(maxSize, next));
+            state.grown = next > state.size;
+            state.previousSize = state.size;
+            state.size = next;
+        }
+    }
+
+    /**
+     * 当前记忆的批次大小
+     *
+     * @param type 实体类型
+     * @return 批次大小，尚未执行过时返回初始大小
+     */
+    public int getSize(Class<?> type) {
+        State state = states.get(type);
+        return state == null ? initialSize : state.size;
+    }
+
+    /**
+     * 当前平滑后的吞吐
+     *
+     * @param type 实体类型
+     * @return 每秒行数，尚未执行过时返回0
+     */
+    public double getRowsPerSecond(Class<?> type) {
+        State state = states.get(type);
+        return state == null ? 0 : state.rowsPerSecond;
+    }
+
+    /**
+     * 清除实体类型记忆的批次大小
+     *
+     * @param type 实体类型
+     */
+    public void reset(Class<?> type) {
+        states.remove(type);
+    }
+
+    /**
+     * 按字段值的文本长度粗略估算单行字节数
+     *
+     * @param values 样本行的字段值
+     * @return 估算字节数
+     */
+    public static long estimateRowBytes(Object[] values) {
+        long bytes = 0;
+        for (Object value : values) {
+            // 每个值额外计入引号、分隔符等开销
+            bytes += (value == null ? 4 : String.valueOf(value).length()) + 4;
+        }
+        return bytes;
+    }
+
+    private int cap(int columnCount, long rowBytes) {
+        int cap = maxSize;
+        if (columnCount > 0) {
+            cap = Math.min(cap, maxBindParameters / columnCount);
+        }
+        if (rowBytes > 0) {
+            cap = (int) Math.min(cap, maxPacketBytes / rowBytes);
+        }
+        return Math.max(1, cap);
+    }
+
+    public long getTargetMinMillis() {
+        return targetMinMillis;
+    }
+
+    public void setTargetMinMillis(long targetMinMillis) {
+        this.targetMinMillis = targetMinMillis;
+    }
+
+    public long getTargetMaxMillis() {
+        return targetMaxMillis;
+    }
+
+    public void setTargetMaxMillis(long targetMaxMillis) {
+        this.targetMaxMillis = targetMaxMillis;
+    }
+
+    public int getInitialSize() {
+        return initialSize;
+    }
+
+    public void setInitialSize(int initialSize) {
+        this.initialSize = initialSize;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxBindParameters() {
+        return maxBindParameters;
+    }
+
+    public void setMaxBindParameters(int maxBindParameters) {
+        this.maxBindParameters = maxBindParameters;
+    }
+
+    public long getMaxPacketBytes() {
+        return maxPacketBytes;
+    }
+
+    public void setMaxPacketBytes(long maxPacketBytes) {
+        this.maxPacketBytes = maxPacketBytes;
+    }
+
+    /**
+     * 单批次执行逻辑
+     *
+     * @param <T> 数据类型
+     * @param <E> 异常类型
+     */
+    @FunctionalInterface
+    public interface Batch<T, E extends Exception> {
+        void apply(List<T> chunk, int batchSize) throws E;
+    }
+
+    private static class State {
+        private int size;
+        private int previousSize;
+        private boolean grown;
+        private double rowsPerSecond;
+
+        State(int size) {
+            this.size = size;
+            this.previousSize = size;
+        }
+    }
+}
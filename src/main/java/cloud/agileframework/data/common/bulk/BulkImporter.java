@@ -0,0 +1,390 @@
+package cloud.agileframework.data.common.bulk;
+
+import cloud.agileframework.common.util.clazz.TypeReference;
+import cloud.agileframework.common.util.object.ObjectUtil;
+import cloud.agileframework.data.common.bulkhead.Bulkhead;
+import cloud.agileframework.data.common.dao.BaseDao;
+import cloud.agileframework.data.common.dao.ColumnName;
+import cloud.agileframework.data.common.dao.OperationType;
+import cloud.agileframework.data.common.dao.TableWrapper;
+import cloud.agileframework.data.common.metadata.EntityMetadata;
+import cloud.agileframework.data.common.metadata.EntityMetadataRegistry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/22 10:40
+ * 描述 文件批量导入，读文件解析、行转换、分批写库三个阶段并行执行，
+ * 阶段之间以有界队列衔接形成背压；转换或写入失败的行单独拒绝，不中断整体导入
+ * @version 1.0
+ * @since 1.0
+ */
+public class BulkImporter<T> {
+    private static final List<?> END = Collections.emptyList();
+
+    private final BaseDao dao;
+    private final Class<T> tableClass;
+    private final ImportFormat format;
+    private final ImportOptions options;
+    private final ImportListener listener;
+    private final Map<String, Setter> setters = new HashMap<>();
+    /**
+     * 调用线程绑定的舱壁，写入线程中的每批写入经由它限流
+     */
+    private final Bulkhead bulkhead = Bulkhead.current();
+
+    public BulkImporter(BaseDao dao, Class<T> tableClass, ImportFormat format, ImportOptions options, ImportListener listener) {
+        this.dao = dao;
+        this.tableClass = tableClass;
+        this.format = format;
+        this.options = options == null ? new ImportOptions() : options;
+        this.options.validate();
+        this.listener = listener == null ? new ImportListener() {
+        } : listener;
+
+        EntityMetadata metadata = EntityMetadataRegistry.find(tableClass);
+        List<ColumnName> columns = dao.toColumnNames(tableClass).stream()
+                .filter(c -> !TableWrapper.isTransient(c, metadata))
+                .collect(Collectors.toList());
+        for (ColumnName column : columns) {
+            Setter setter = Setter.of(tableClass, column);
+            if (setter != null) {
+                setters.putIfAbsent(column.getName().toLowerCase(), setter);
+                setters.putIfAbsent(column.getPropertyName().toLowerCase(), setter);
+            }
+        }
+    }
+
+    /**
+     * 导入文件
+     *
+     * @param file 文件路径
+     * @return 导入结果
+     * @throws IOException 读文件异常
+     */
+    @SuppressWarnings("unchecked")
+    public ImportResult load(Path file) throws IOException {
+        ImportResult result = new ImportResult();
+        BlockingQueue<List<RecordReader.Record>> parsed = new ArrayBlockingQueue<>(options.getQueueCapacity());
+        BlockingQueue<List<Row<T>>> converted = new ArrayBlockingQueue<>(options.getQueueCapacity());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<String[]> header = new AtomicReference<>();
+        int converterThreads = options.getConverterThreads();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Reader reader = Channels.newReader(channel, options.getCharset().newDecoder(), options.getReadBufferSize())) {
+            Thread parser = new Thread(() -> {
+                try {
+                    RecordReader records = new RecordReader(reader, format, options.getReadBufferSize());
+                    if (format != ImportFormat.JSON_LINES) {
+                        RecordReader.Record first = records.next();
+                        header.set(first == null ? new String[0] : first.values);
+                    }
+                    List<RecordReader.Record> chunk = new ArrayList<>(options.getBatchSize());
+                    RecordReader.Record record;
+                    while ((record = records.next()) != null && failure.get() == null) {
+                        chunk.add(record);
+                        if (chunk.size() >= options.getBatchSize()) {
+                            result.addRead(chunk.size());
+                            parsed.put(chunk);
+                            chunk = new ArrayList<>(options.getBatchSize());
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        result.addRead(chunk.size());
+                        parsed.put(chunk);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    for (int i = 0; i < converterThreads; i++) {
+                        putQuietly(parsed, (List<RecordReader.Record>) END);
+                    }
+                }
+            }, "agile-import-parser");
+            parser.setDaemon(true);
+            parser.start();
+
+            List<Thread> converters = new ArrayList<>(converterThreads);
+            for (int i = 0; i < converterThreads; i++) {
+                Thread converter = new Thread(() -> {
+                    try {
+                        while (true) {
+                            List<RecordReader.Record> chunk = parsed.take();
+                            if (chunk == END) {
+                                break;
+                            }
+                            List<Row<T>> rows = new ArrayList<>(chunk.size());
+                            for (RecordReader.Record record : chunk) {
+                                try {
+                                    rows.add(new Row<>(record, convert(record, header.get())));
+                                } catch (Exception e) {
+                                    result.addRejected(1);
+                                    listener.onReject(record.line, record.raw, e);
+                                }
+                            }
+                            converted.put(rows);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        putQuietly(converted, (List<Row<T>>) END);
+                    }
+                }, "agile-import-converter-" + i);
+                converter.setDaemon(true);
+                converter.start();
+                converters.add(converter);
+            }
+
+            try {
+                write(converted, converterThreads, result);
+            } catch (InterruptedException e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                if (failure.get() != null || Thread.currentThread().isInterrupted()) {
+                    // 写入阶段提前结束，中断上游阶段并清空队列，避免其阻塞在put上
+                    parser.interrupt();
+                    converters.forEach(Thread::interrupt);
+                    parsed.clear();
+                    converted.clear();
+                }
+            }
+
+            parser.join();
+            for (Thread converter : converters) {
+                converter.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        }
+        result.finish();
+
+        Throwable e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e != null) {
+            throw new IllegalStateException(e);
+        }
+        return result;
+    }
+
+    private void write(BlockingQueue<List<Row<T>>> converted, int producers, ImportResult result) throws InterruptedException {
+        List<Row<T>> batch = new ArrayList<>(options.getBatchSize());
+        int finished = 0;
+        while (finished < producers) {
+            List<Row<T>> rows = converted.take();
+            if (rows == END) {
+                finished++;
+                continue;
+            }
+            for (Row<T> row : rows) {
+                batch.add(row);
+                if (batch.size() >= options.getBatchSize()) {
+                    flush(batch, result);
+                    batch = new ArrayList<>(options.getBatchSize());
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, result);
+        }
+    }
+
+    /**
+     * 整批写入失败时逐行重试，以定位并拒绝问题行。
+     * 未配置事务管理器时失败批次中已提交的行不会回滚，重试前按主键排除这些行，避免重复插入
+     */
+    private void flush(List<Row<T>> batch, ImportResult result) {
+        List<T> entities = batch.stream().map(r -> r.entity).collect(Collectors.toList());
+        try {
+            write(OperationType.BATCH_WRITE, () -> dao.batchInsert(entities, entities.size()));
+            result.addInserted(entities.size());
+        } catch (Exception batchError) {
+            Set<Object> committed = committedIds(entities);
+            for (Row<T> row : batch) {
+                if (!committed.isEmpty() && committed.contains(idOf(row.entity))) {
+                    result.addInserted(1);
+                    continue;
+                }
+                try {
+                    write(OperationType.WRITE, () -> dao.save(row.entity));
+                    result.addInserted(1);
+                } catch (Exception e) {
+                    result.addRejected(1);
+                    listener.onReject(row.record.line, row.record.raw, e);
+                }
+            }
+        }
+        listener.onProgress(result);
+    }
+
+    /**
+     * 写入在导入的写线程中执行，不经过dao代理，在此按舱壁与事务管理器包装
+     */
+    private void write(OperationType type, Runnable runnable) {
+        PlatformTransactionManager transactionManager = options.getTransactionManager();
+        Runnable call = transactionManager == null ? runnable
+                : () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> runnable.run());
+        if (bulkhead == null) {
+            call.run();
+            return;
+        }
+        try {
+            bulkhead.execute(tableClass, type, () -> {
+                call.run();
+                return null;
+            });
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 失败批次中已写入库的主键，批次在事务中回滚时为空
+     */
+    private Set<Object> committedIds(List<T> entities) {
+        if (options.getTransactionManager() != null) {
+            return Collections.emptySet();
+        }
+        List<Object> ids = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            Object id = idOf(entity);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        try {
+            return dao.existsAllById(tableClass, ids);
+        } catch (NoSuchFieldException e) {
+            return Collections.emptySet();
+        }
+    }
+
+    private Object idOf(T entity) {
+        try {
+            Object id = dao.getId(entity);
+            return id == null ? null : dao.toIdType(tableClass, id);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private T convert(RecordReader.Record record, String[] header) throws ReflectiveOperationException {
+        T entity = tableClass.getDeclaredConstructor().newInstance();
+        if (format == ImportFormat.JSON_LINES) {
+            for (Map.Entry<String, String> entry : RecordReader.parseObject(record.raw).entrySet()) {
+                set(entity, entry.getKey(), entry.getValue());
+            }
+            return entity;
+        }
+        if (record.values.length != header.length) {
+            throw new IllegalArgumentException("Expected " + header.length + " fields but found " + record.values.length);
+        }
+        for (int i = 0; i < header.length; i++) {
+            set(entity, header[i], record.values[i]);
+        }
+        return entity;
+    }
+
+    private void set(T entity, String name, String value) throws ReflectiveOperationException {
+        Setter setter = setters.get(name.trim().toLowerCase());
+        if (setter == null || value == null) {
+            return;
+        }
+        if (value.isEmpty() && setter.type != String.class) {
+            return;
+        }
+        setter.set(entity, setter.type == String.class ? value : ObjectUtil.to(value, new TypeReference<>(setter.type)));
+    }
+
+    private static <E> void putQuietly(BlockingQueue<E> queue, E e) {
+        try {
+            queue.put(e);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Row<T> {
+        private final RecordReader.Record record;
+        private final T entity;
+
+        Row(RecordReader.Record record, T entity) {
+            this.record = record;
+            this.entity = entity;
+        }
+    }
+
+    /**
+     * 字段赋值器，属性直接赋值，getter标注的字段使用对应的setter
+     */
+    private static class Setter {
+        private final Field field;
+        private final Method method;
+        private final Class<?> type;
+
+        private Setter(Field field, Method method, Class<?> type) {
+            this.field = field;
+            this.method = method;
+            this.type = type;
+        }
+
+        static Setter of(Class<?> tableClass, ColumnName column) {
+            if (column.getMember() instanceof Field) {
+                Field field = (Field) column.getMember();
+                field.setAccessible(true);
+                return new Setter(field, null, field.getType());
+            }
+            Method getter = (Method) column.getMember();
+            String property = column.getPropertyName();
+            String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            try {
+                Method setter = tableClass.getMethod(name, getter.getReturnType());
+                return new Setter(null, setter, getter.getReturnType());
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        void set(Object o, Object value) throws ReflectiveOperationException {
+            if (field != null) {
+                field.set(o, value);
+            } else {
+                method.invoke(o, value);
+            }
+        }
+    }
+}
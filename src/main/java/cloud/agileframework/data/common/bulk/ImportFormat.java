@@ -0,0 +1,23 @@
+package cloud.agileframework.data.common.bulk;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/22 9:30
+ * 描述 批量导入的文件格式
+ * @version 1.0
+ * @since 1.0
+ */
+public enum ImportFormat {
+    /**
+     * 逗号分隔，首行为字段名，支持双引号包裹与跨行字段
+     */
+    CSV,
+    /**
+     * 制表符分隔，首行为字段名，支持\t、\n、\r、\\转义
+     */
+    TSV,
+    /**
+     * 每行一个扁平json对象，键为字段名或属性名
+     */
+    JSON_LINES
+}
@@ -0,0 +1,28 @@
+package cloud.agileframework.data.common.bulk;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/22 9:42
+ * 描述 批量导入进度与被拒绝行的回调，回调可能来自不同的导入线程
+ * @version 1.0
+ * @since 1.0
+ */
+public interface ImportListener {
+    /**
+     * 每批次写入后回调
+     *
+     * @param result 当前累计结果
+     */
+    default void onProgress(ImportResult result) {
+    }
+
+    /**
+     * 单行被拒绝时回调，导入继续进行
+     *
+     * @param line  行号，从1开始，json lines与csv首行字段名计入行号
+     * @param raw   原始内容
+     * @param cause 拒绝原因
+     */
+    default void onReject(long line, String raw, Exception cause) {
+    }
+}
@@ -0,0 +1,109 @@
+package cloud.agileframework.data.common.bulk;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/22 9:36
+ * 描述 批量导入参数
+ * @version 1.0
+ * @since 1.0
+ */
+public class ImportOptions {
+    /**
+     * 每批次插入的行数
+     */
+    private int batchSize = 1000;
+    /**
+     * 各阶段之间缓冲的批次数，缓冲满时上游阶段阻塞
+     */
+    private int queueCapacity = 8;
+    /**
+     * 转换阶段的线程数，不能大于queueCapacity：读文件阶段结束时向队列放入与线程数相同个数的结束标记
+     */
+    private int converterThreads = 2;
+    /**
+     * 读文件缓冲区大小，字节
+     */
+    private int readBufferSize = 1 << 20;
+    /**
+     * 文件编码
+     */
+    private Charset charset = StandardCharsets.UTF_8;
+    /**
+     * 事务管理器，不为空时每个批次与逐行重试各自在独立事务中执行，批次失败时整批回滚
+     */
+    private PlatformTransactionManager transactionManager;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getConverterThreads() {
+        return converterThreads;
+    }
+
+    public void setConverterThreads(int converterThreads) {
+        if (converterThreads <= 0) {
+            throw new IllegalArgumentException("Converter threads must be positive");
+        }
+        this.converterThreads = converterThreads;
+    }
+
+    public int getReadBufferSize() {
+        return readBufferSize;
+    }
+
+    public void setReadBufferSize(int readBufferSize) {
+        if (readBufferSize <= 0) {
+            throw new IllegalArgumentException("Read buffer size must be positive");
+        }
+        this.readBufferSize = readBufferSize;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * 校验参数之间的约束，导入开始前调用
+     */
+    public void validate() {
+        if (converterThreads > queueCapacity) {
+            throw new IllegalArgumentException("Converter threads (" + converterThreads + ") must not exceed queue capacity (" + queueCapacity + ")");
+        }
+    }
+
+    public PlatformTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+}
@@ -0,0 +1,67 @@
+package cloud.agileframework.data.common.bulk;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/22 9:48
+ * 描述 批量导入结果
+ * @version 1.0
+ * @since 1.0
+ */
+public class ImportResult {
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final long startAt = System.currentTimeMillis();
+    private volatile long endAt;
+
+    void addRead(long n) {
+        read.addAndGet(n);
+    }
+
+    void addInserted(long n) {
+        inserted.addAndGet(n);
+    }
+
+    void addRejected(long n) {
+        rejected.addAndGet(n);
+    }
+
+    void finish() {
+        endAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 已解析的行数
+     */
+    public long getRead() {
+        return read.get();
+    }
+
+    /**
+     * 已写入的行数
+     */
+    public long getInserted() {
+        return inserted.get();
+    }
+
+    /**
+     * 被拒绝的行数
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 耗时，毫秒
+     */
+    public long getElapsed() {
+        return (endAt == 0 ? System.currentTimeMillis() : endAt) - startAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{read=" + getRead() + ", inserted=" + getInserted() + ", rejected=" + getRejected() + ", elapsed=" + getElapsed() + "ms}";
+    }
+}
@@ -0,0 +1,292 @@
+package cloud.agileframework.data.common.bulk;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/22 10:05
+ * 描述 按格式逐条解析导入文件，自行管理字符缓冲区，不依赖按行读取
+ * @version 1.0
+ * @since 1.0
+ */
+class RecordReader {
+    private final Reader reader;
+    private final ImportFormat format;
+    private final char[] buffer;
+    private final StringBuilder raw = new StringBuilder(256);
+    private final StringBuilder field = new StringBuilder(64);
+    private int position;
+    private int limit;
+    private int pushback = -2;
+    private long line;
+
+    RecordReader(Reader reader, ImportFormat format, int bufferSize) {
+        this.reader = reader;
+        this.format = format;
+        this.buffer = new char[Math.max(1024, bufferSize / 2)];
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 记录，文件结束时返回null
+     * @throws IOException 读文件异常
+     */
+    Record next() throws IOException {
+        while (true) {
+            raw.setLength(0);
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            line++;
+            long start = line;
+            Record record;
+            switch (format) {
+                case CSV:
+                    record = new Record(start, csv(c));
+                    break;
+                case TSV:
+                    record = new Record(start, tsv(c));
+                    break;
+                default:
+                    readLine(c);
+                    if (raw.toString().trim().isEmpty()) {
+                        continue;
+                    }
+                    record = new Record(start, (String[]) null);
+                    break;
+            }
+            record.raw = raw.toString();
+            return record;
+        }
+    }
+
+    private String[] csv(int c) throws IOException {
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean inQuotes = false;
+        while (c != -1) {
+            if (inQuotes) {
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                        raw.append('"');
+                    } else {
+                        inQuotes = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            raw.append((char) c);
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private String[] tsv(int c) throws IOException {
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        while (c != -1 && c != '\n') {
+            raw.append((char) c);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\') {
+                int next = read();
+                raw.append((char) next);
+                switch (next) {
+                    case 't':
+                        field.append('\t');
+                        break;
+                    case 'n':
+                        field.append('\n');
+                        break;
+                    case 'r':
+                        field.append('\r');
+                        break;
+                    default:
+                        field.append((char) next);
+                }
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private void readLine(int c) throws IOException {
+        while (c != -1 && c != '\n') {
+            if (c != '\r') {
+                raw.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushback != -2) {
+            int c = pushback;
+            pushback = -2;
+            return c;
+        }
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+
+    /**
+     * 解析扁平json对象，值统一以字符串表示，嵌套对象与数组不支持
+     *
+     * @param json json文本
+     * @return 键值映射
+     */
+    static Map<String, String> parseObject(String json) {
+        Map<String, String> map = new LinkedHashMap<>();
+        int[] i = {skipBlank(json, 0)};
+        expect(json, i, '{');
+        i[0] = skipBlank(json, i[0]);
+        if (i[0] < json.length() && json.charAt(i[0]) == '}') {
+            return map;
+        }
+        while (true) {
+            i[0] = skipBlank(json, i[0]);
+            String key = string(json, i);
+            i[0] = skipBlank(json, i[0]);
+            expect(json, i, ':');
+            i[0] = skipBlank(json, i[0]);
+            map.put(key, value(json, i));
+            i[0] = skipBlank(json, i[0]);
+            if (i[0] >= json.length()) {
+                throw new IllegalArgumentException("Unexpected end of json");
+            }
+            char c = json.charAt(i[0]++);
+            if (c == '}') {
+                return map;
+            }
+            if (c != ',') {
+                throw new IllegalArgumentException("Unexpected '" + c + "' at " + (i[0] - 1));
+            }
+        }
+    }
+
+    private static String value(String json, int[] i) {
+        if (i[0] >= json.length()) {
+            throw new IllegalArgumentException("Unexpected end of json");
+        }
+        char c = json.charAt(i[0]);
+        if (c == '"') {
+            return string(json, i);
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("Nested json value is not supported at " + i[0]);
+        }
+        int start = i[0];
+        while (i[0] < json.length() && ",} \t\r\n".indexOf(json.charAt(i[0])) < 0) {
+            i[0]++;
+        }
+        String literal = json.substring(start, i[0]);
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private static String string(String json, int[] i) {
+        expect(json, i, '"');
+        StringBuilder sb = new StringBuilder();
+        while (i[0] < json.length()) {
+            char c = json.charAt(i[0]++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char e = json.charAt(i[0]++);
+            switch (e) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    sb.append((char) Integer.parseInt(json.substring(i[0], i[0] + 4), 16));
+                    i[0] += 4;
+                    break;
+                default:
+                    sb.append(e);
+            }
+        }
+        throw new IllegalArgumentException("Unterminated json string");
+    }
+
+    private static void expect(String json, int[] i, char expected) {
+        if (i[0] >= json.length() || json.charAt(i[0]) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at " + i[0]);
+        }
+        i[0]++;
+    }
+
+    private static int skipBlank(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 一条导入记录
+     */
+    static class Record {
+        final long line;
+        final String[] values;
+        String raw;
+
+        Record(long line, String[] values) {
+            this.line = line;
+            this.values = values;
+        }
+    }
+}
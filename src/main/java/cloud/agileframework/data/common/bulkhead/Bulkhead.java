@@ -0,0 +1,265 @@
+package cloud.agileframework.data.common.bulkhead;
+
+import cloud.agileframework.data.common.dao.OperationType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/08 10:40
+ * 描述 舱壁隔离，按实体类型与操作类型划分隔舱，每个隔舱独立限制并发与排队，
+ * 限额在每次进入时重新读取，运行期修改配置立即生效
+ * @version 1.0
+ * @since 1.0
+ */
+public class Bulkhead {
+    /**
+     * 当前线程已持有名额时，内部嵌套调用不再重复申请，避免自身死锁
+     */
+    private static final ThreadLocal<Boolean> INSIDE = new ThreadLocal<>();
+    /**
+     * 当前线程发起的操作所属的舱壁，供在其他线程中执行写入的批量操作沿用
+     */
+    private static final ThreadLocal<Bulkhead> CURRENT = new ThreadLocal<>();
+
+    private final LimitResolver resolver;
+    private final Map<Key, Compartment> compartments = new ConcurrentHashMap<>();
+
+    public Bulkhead(LimitResolver resolver) {
+        this.resolver = resolver;
+    }
+
+    /**
+     * 在隔舱内执行操作
+     *
+     * @param entityClass   实体类型，原生sql未指定实体时为null
+     * @param operationType 操作类型
+     * @param call          操作
+     * @param <R>           返回类型
+     * @return 操作结果
+     * @throws Throwable 操作异常
+     */
+    public <R> R execute(Class<?> entityClass, OperationType operationType, Call<R> call) throws Throwable {
+        if (INSIDE.get() != null) {
+            return call.call();
+        }
+        BulkheadLimit limit = resolver.resolve(entityClass, operationType);
+        if (limit == null || limit.getMaxConcurrent() <= 0) {
+            return call.call();
+        }
+
+        Compartment compartment = compartments.computeIfAbsent(new Key(entityClass, operationType), Compartment::new);
+        compartment.resize(limit.getMaxConcurrent());
+        compartment.acquire(limit);
+        INSIDE.set(Boolean.TRUE);
+        try {
+            return call.call();
+        } finally {
+            INSIDE.remove();
+            compartment.semaphore.release();
+        }
+    }
+
+    /**
+     * 不占用名额，仅将本舱壁绑定到当前线程后执行操作，用于在独立线程中分批写入的长时间操作，
+     * 由其内部各批次写入分别进入隔舱，避免调用线程在整个操作期间占用名额
+     *
+     * @param call 操作
+     * @param <R>  返回类型
+     * @return 操作结果
+     * @throws Throwable 操作异常
+     */
+    public <R> R bind(Call<R> call) throws Throwable {
+        Bulkhead previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前线程绑定的舱壁
+     *
+     * @return 舱壁，未绑定时为null
+     */
+    public static Bulkhead current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 各隔舱的运行指标
+     *
+     * @return 指标快照
+     */
+    public List<BulkheadStats> stats() {
+        List<BulkheadStats> result = new ArrayList<>(compartments.size());
+        compartments.values().forEach(compartment -> result.add(compartment.stats()));
+        return result;
+    }
+
+    /**
+     * 限额来源
+     */
+    @FunctionalInterface
+    public interface LimitResolver {
+        /**
+         * 取隔舱限额
+         *
+         * @param entityClass   实体类型，原生sql未指定实体时为null
+         * @param operationType 操作类型
+         * @return 限额，为空时不限制
+         */
+        BulkheadLimit resolve(Class<?> entityClass, OperationType operationType);
+    }
+
+    /**
+     * 被隔离的操作
+     *
+     * @param <R> 返回类型
+     */
+    @FunctionalInterface
+    public interface Call<R> {
+        R call() throws Throwable;
+    }
+
+    private static class Key {
+        private final Class<?> entityClass;
+        private final OperationType operationType;
+
+        Key(Class<?> entityClass, OperationType operationType) {
+            this.entityClass = entityClass;
+            this.operationType = operationType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(entityClass, key.entityClass) && operationType == key.operationType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityClass, operationType);
+        }
+    }
+
+    private static class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore() {
+            super(0, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    private static class Compartment {
+        private final Key key;
+        private final ResizableSemaphore semaphore = new ResizableSemaphore();
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final AtomicLong maxQueueNanos = new AtomicLong();
+        private volatile int limit;
+
+        Compartment(Key key) {
+            this.key = key;
+        }
+
+        void resize(int newLimit) {
+            if (newLimit == limit) {
+                return;
+            }
+            synchronized (this) {
+                int delta = newLimit - limit;
+                if (delta > 0) {
+                    semaphore.release(delta);
+                } else if (delta < 0) {
+                    // 缩容时已持有的名额照常释放，许可数暂为负，直至执行中的操作结束
+                    semaphore.reducePermits(-delta);
+                }
+                limit = newLimit;
+            }
+        }
+
+        void acquire(BulkheadLimit bulkheadLimit) {
+            long start = System.nanoTime();
+            if (semaphore.tryAcquire()) {
+                onAcquired(0);
+                return;
+            }
+            if (bulkheadLimit.getMaxWaitMillis() <= 0 || !enqueue(bulkheadLimit.getMaxQueue())) {
+                throw reject(start, null);
+            }
+            try {
+                if (semaphore.tryAcquire(bulkheadLimit.getMaxWaitMillis(), TimeUnit.MILLISECONDS)) {
+                    onAcquired(System.nanoTime() - start);
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(start, e);
+            } finally {
+                waiting.decrementAndGet();
+            }
+            throw reject(start, null);
+        }
+
+        /**
+         * 占用排队名额，判断与占用在同一次CAS中完成，并发进入时排队数不会超过上限
+         */
+        private boolean enqueue(int maxQueue) {
+            while (true) {
+                int current = waiting.get();
+                if (current >= maxQueue) {
+                    return false;
+                }
+                if (waiting.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void onAcquired(long queued) {
+            acquired.increment();
+            queueNanos.add(queued);
+            maxQueueNanos.accumulateAndGet(queued, Math::max);
+        }
+
+        private BulkheadFullException reject(long start, Throwable cause) {
+            rejected.increment();
+            long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new BulkheadFullException(key.entityClass, key.operationType, limit, waited, cause);
+        }
+
+        BulkheadStats stats() {
+            int current = limit;
+            return new BulkheadStats(key.entityClass, key.operationType, current,
+                    Math.max(0, current - semaphore.availablePermits()), waiting.get(),
+                    acquired.sum(), rejected.sum(), queueNanos.sum(), maxQueueNanos.get());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package cloud.agileframework.data.common.bulkhead;
+
+import cloud.agileframework.data.common.dao.OperationType;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/08 11:05
+ * 描述 按BaseDao方法的实体类型与操作类型进入对应隔舱
+ * @version 1.0
+ * @since 1.0
+ */
+@Aspect
+public class BulkheadAspect {
+    private final Bulkhead bulkhead;
+
+    public BulkheadAspect(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    @Around("execution(* cloud.agileframework.data.common.dao.BaseDao+.*(..))")
+    public Object isolate(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        OperationType type = OperationType.of(method);
+        if (type == OperationType.NONE) {
+            return joinPoint.proceed();
+        }
+        if (method.getName().startsWith("import")) {
+            // 导入在独立线程中分批写入，每批单独进入BATCH_WRITE隔舱
+            return bulkhead.bind(joinPoint::proceed);
+        }
+        return bulkhead.execute(OperationType.entityClass(joinPoint.getArgs()), type, joinPoint::proceed);
+    }
+}
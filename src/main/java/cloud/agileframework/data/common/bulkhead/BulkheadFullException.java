@@ -0,0 +1,42 @@
+package cloud.agileframework.data.common.bulkhead;
+
+import cloud.agileframework.data.common.dao.OperationType;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/08 10:20
+ * 描述 舱壁名额已满，操作被拒绝
+ * @version 1.0
+ * @since 1.0
+ */
+public class BulkheadFullException extends RuntimeException {
+    private final Class<?> entityClass;
+    private final OperationType operationType;
+    private final int maxConcurrent;
+    private final long waitedMillis;
+
+    public BulkheadFullException(Class<?> entityClass, OperationType operationType, int maxConcurrent, long waitedMillis, Throwable cause) {
+        super(String.format("Bulkhead full for %s %s: %d concurrent operations allowed, rejected after waiting %d ms",
+                entityClass == null ? "<raw sql>" : entityClass.getName(), operationType, maxConcurrent, waitedMillis), cause);
+        this.entityClass = entityClass;
+        this.operationType = operationType;
+        this.maxConcurrent = maxConcurrent;
+        this.waitedMillis = waitedMillis;
+    }
+
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public OperationType getOperationType() {
+        return operationType;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public long getWaitedMillis() {
+        return waitedMillis;
+    }
+}
@@ -0,0 +1,55 @@
+package cloud.agileframework.data.common.bulkhead;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/08 10:12
+ * 描述 舱壁限额，限制同一实体类型、同一操作类型的并发数与排队
+ * @version 1.0
+ * @since 1.0
+ */
+public class BulkheadLimit {
+    /**
+     * 最大并发数，小于等于0时不限制
+     */
+    private int maxConcurrent;
+    /**
+     * 无空闲名额时最长等待时间，毫秒，小于等于0时直接拒绝
+     */
+    private long maxWaitMillis;
+    /**
+     * 同时排队等待的最大线程数，超过时直接拒绝
+     */
+    private int maxQueue = 100;
+
+    public static BulkheadLimit of(int maxConcurrent, long maxWaitMillis, int maxQueue) {
+        BulkheadLimit limit = new BulkheadLimit();
+        limit.setMaxConcurrent(maxConcurrent);
+        limit.setMaxWaitMillis(maxWaitMillis);
+        limit.setMaxQueue(maxQueue);
+        return limit;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public void setMaxQueue(int maxQueue) {
+        this.maxQueue = maxQueue;
+    }
+}
@@ -0,0 +1,87 @@
+package cloud.agileframework.data.common.bulkhead;
+
+import cloud.agileframework.data.common.dao.OperationType;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/08 10:26
+ * 描述 舱壁运行指标快照
+ * @version 1.0
+ * @since 1.0
+ */
+public class BulkheadStats {
+    private final Class<?> entityClass;
+    private final OperationType operationType;
+    private final int maxConcurrent;
+    private final int active;
+    private final int waiting;
+    private final long acquired;
+    private final long rejected;
+    private final long totalQueueNanos;
+    private final long maxQueueNanos;
+
+    BulkheadStats(Class<?> entityClass, OperationType operationType, int maxConcurrent, int active, int waiting,
+                  long acquired, long rejected, long totalQueueNanos, long maxQueueNanos) {
+        this.entityClass = entityClass;
+        this.operationType = operationType;
+        this.maxConcurrent = maxConcurrent;
+        this.active = active;
+        this.waiting = waiting;
+        this.acquired = acquired;
+        this.rejected = rejected;
+        this.totalQueueNanos = totalQueueNanos;
+        this.maxQueueNanos = maxQueueNanos;
+    }
+
+    /**
+     * @return 实体类型，原生sql未指定实体时为null
+     */
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    public OperationType getOperationType() {
+        return operationType;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return 正在执行的操作数
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * @return 正在排队的线程数
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getAcquired() {
+        return acquired;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getTotalQueueNanos() {
+        return totalQueueNanos;
+    }
+
+    public long getMaxQueueNanos() {
+        return maxQueueNanos;
+    }
+
+    /**
+     * @return 获得名额前的平均排队时间，毫秒
+     */
+    public double getAverageQueueMillis() {
+        return acquired == 0 ? 0 : totalQueueNanos / 1e6 / acquired;
+    }
+}
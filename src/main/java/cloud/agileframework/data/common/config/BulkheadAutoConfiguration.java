@@ -0,0 +1,35 @@
+package cloud.agileframework.data.common.config;
+
+import cloud.agileframework.data.common.bulkhead.Bulkhead;
+import cloud.agileframework.data.common.bulkhead.BulkheadAspect;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/08 11:32
+ * 描述 舱壁隔离，按实体类型与操作类型限制BaseDao并发，防止个别重查询耗尽连接池
+ * @version 1.0
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnClass(Aspect.class)
+@ConditionalOnProperty(prefix = "agile.data.bulkhead", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadAutoConfiguration {
+    @Bean
+    @ConditionalOnMissingBean(Bulkhead.class)
+    Bulkhead bulkhead(BulkheadProperties properties) {
+        return new Bulkhead(properties::resolve);
+    }
+
+    @Bean
+    BulkheadAspect bulkheadAspect(Bulkhead bulkhead) {
+        return new BulkheadAspect(bulkhead);
+    }
+}
@@ -0,0 +1,79 @@
+package cloud.agileframework.data.common.config;
+
+import cloud.agileframework.data.common.bulkhead.BulkheadLimit;
+import cloud.agileframework.data.common.dao.OperationType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/08 11:20
+ * 描述 舱壁隔离配置，实体级配置优先于默认配置，例如
+ * agile.data.bulkhead.defaults.RAW_SQL.max-concurrent=4
+ * agile.data.bulkhead.entities[com.example.Report].READ.max-concurrent=2
+ * 限额在每次调用时读取，配置刷新后立即生效
+ * @version 1.0
+ * @since 1.0
+ */
+@ConfigurationProperties(prefix = "agile.data.bulkhead")
+public class BulkheadProperties {
+    /**
+     * 是否开启舱壁隔离
+     */
+    private boolean enabled;
+    /**
+     * 各操作类型的默认限额
+     */
+    private Map<OperationType, BulkheadLimit> defaults = new EnumMap<>(OperationType.class);
+    /**
+     * 实体级限额，键为实体类全名或简单类名
+     */
+    private Map<String, Map<OperationType, BulkheadLimit>> entities = new HashMap<>();
+
+    /**
+     * 取实体类型与操作类型对应的限额
+     *
+     * @param entityClass   实体类型，可为空
+     * @param operationType 操作类型
+     * @return 限额，未配置时为空
+     */
+    public BulkheadLimit resolve(Class<?> entityClass, OperationType operationType) {
+        if (entityClass != null && !entities.isEmpty()) {
+            Map<OperationType, BulkheadLimit> limits = entities.get(entityClass.getName());
+            if (limits == null) {
+                limits = entities.get(entityClass.getSimpleName());
+            }
+            if (limits != null && limits.containsKey(operationType)) {
+                return limits.get(operationType);
+            }
+        }
+        return defaults.get(operationType);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Map<OperationType, BulkheadLimit> getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Map<OperationType, BulkheadLimit> defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Map<OperationType, BulkheadLimit>> getEntities() {
+        return entities;
+    }
+
+    public void setEntities(Map<String, Map<OperationType, BulkheadLimit>> entities) {
+        this.entities = entities;
+    }
+}
@@ -0,0 +1,25 @@
+package cloud.agileframework.data.common.config;
+
+import cloud.agileframework.data.common.dao.IdentityMapAspect;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/22 14:35
+ * 描述 原生sql写操作后清空事务级标识映射
+ * @version 1.0
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnClass(Aspect.class)
+public class IdentityMapAutoConfiguration {
+    @Bean
+    @ConditionalOnMissingBean(IdentityMapAspect.class)
+    IdentityMapAspect identityMapAspect() {
+        return new IdentityMapAspect();
+    }
+}
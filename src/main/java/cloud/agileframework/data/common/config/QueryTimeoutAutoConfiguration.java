@@ -0,0 +1,90 @@
+package cloud.agileframework.data.common.config;
+
+import cloud.agileframework.data.common.timeout.DeadlineAspect;
+import cloud.agileframework.data.common.timeout.DeadlineDataSource;
+import cloud.agileframework.data.common.timeout.QueryTimeoutMetrics;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/26 11:52
+ * 描述 查询超时，为BaseDao操作施加默认截止时间，数据库变慢时限制连接占用时长
+ * @version 1.0
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnClass(Aspect.class)
+@ConditionalOnProperty(prefix = "agile.data.timeout", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(QueryTimeoutProperties.class)
+public class QueryTimeoutAutoConfiguration {
+    @Bean
+    @ConditionalOnMissingBean(QueryTimeoutMetrics.class)
+    QueryTimeoutMetrics queryTimeoutMetrics() {
+        return new QueryTimeoutMetrics();
+    }
+
+    @Bean
+    DeadlineAspect deadlineAspect(QueryTimeoutProperties properties, QueryTimeoutMetrics metrics) {
+        return new DeadlineAspect(properties::resolve, metrics);
+    }
+
+    /**
+     * 以DeadlineDataSource包装应用直接使用的数据源，截止时间作用于经连接创建的全部语句，
+     * 包括ORM与仓库方法、分页与计数查询以及并发分块查询在线程池中执行的语句。
+     * 只包装标注了@Primary的数据源，容器中只有一个数据源时包装该数据源；
+     * 读写分离、分片等路由数据源的目标数据源不被包装，避免同一语句重复设置超时。
+     * 包装后的bean类型变为DeadlineDataSource，按具体连接池类型（如HikariDataSource）注入会失败，
+     * 此时需通过unwrap取得原数据源，或配置agile.data.timeout.wrap-data-source=false关闭包装
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "agile.data.timeout", name = "wrap-data-source", havingValue = "true", matchIfMissing = true)
+    static BeanPostProcessor deadlineDataSourcePostProcessor() {
+        return new DeadlineDataSourcePostProcessor();
+    }
+
+    static class DeadlineDataSourcePostProcessor implements BeanPostProcessor, BeanFactoryAware {
+        private ConfigurableListableBeanFactory beanFactory;
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            if (beanFactory instanceof ConfigurableListableBeanFactory) {
+                this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+            }
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !(bean instanceof DeadlineDataSource) && isApplicationDataSource(beanName)) {
+                return new DeadlineDataSource((DataSource) bean);
+            }
+            return bean;
+        }
+
+        private boolean isApplicationDataSource(String beanName) {
+            if (beanFactory == null) {
+                return false;
+            }
+            if (beanFactory.getBeanNamesForType(DataSource.class, true, false).length == 1) {
+                return true;
+            }
+            try {
+                return beanFactory.getMergedBeanDefinition(beanName).isPrimary();
+            } catch (NoSuchBeanDefinitionException e) {
+                return false;
+            }
+        }
+    }
+}
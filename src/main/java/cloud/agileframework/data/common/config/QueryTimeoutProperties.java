@@ -0,0 +1,90 @@
+package cloud.agileframework.data.common.config;
+
+import cloud.agileframework.data.common.dao.OperationType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/26 11:40
+ * 描述 查询超时配置，单位毫秒，实体级配置优先于默认配置，例如
+ * agile.data.timeout.defaults.READ=3000
+ * agile.data.timeout.entities[com.example.Report].READ=30000
+ * @version 1.0
+ * @since 1.0
+ */
+@ConfigurationProperties(prefix = "agile.data.timeout")
+public class QueryTimeoutProperties {
+    /**
+     * 是否开启默认查询超时与超时统计
+     */
+    private boolean enabled;
+    /**
+     * 是否以DeadlineDataSource包装@Primary或唯一的数据源，使仓库方法与实现类自行执行的sql同样受截止时间约束；
+     * 包装后bean类型变为DeadlineDataSource
+     */
+    private boolean wrapDataSource = true;
+    /**
+     * 各操作类型的默认超时时间
+     */
+    private Map<OperationType, Long> defaults = new EnumMap<>(OperationType.class);
+    /**
+     * 实体级超时时间，键为实体类全名或简单类名
+     */
+    private Map<String, Map<OperationType, Long>> entities = new HashMap<>();
+
+    /**
+     * 取实体类型与操作类型对应的超时时间
+     *
+     * @param entityClass   实体类型，可为空
+     * @param operationType 操作类型
+     * @return 超时时间，未配置时为空
+     */
+    public Long resolve(Class<?> entityClass, OperationType operationType) {
+        if (entityClass != null && !entities.isEmpty()) {
+            Map<OperationType, Long> timeouts = entities.get(entityClass.getName());
+            if (timeouts == null) {
+                timeouts = entities.get(entityClass.getSimpleName());
+            }
+            if (timeouts != null && timeouts.containsKey(operationType)) {
+                return timeouts.get(operationType);
+            }
+        }
+        return defaults.get(operationType);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isWrapDataSource() {
+        return wrapDataSource;
+    }
+
+    public void setWrapDataSource(boolean wrapDataSource) {
+        this.wrapDataSource = wrapDataSource;
+    }
+
+    public Map<OperationType, Long> getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Map<OperationType, Long> defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Map<OperationType, Long>> getEntities() {
+        return entities;
+    }
+
+    public void setEntities(Map<String, Map<OperationType, Long>> entities) {
+        this.entities = entities;
+    }
+}
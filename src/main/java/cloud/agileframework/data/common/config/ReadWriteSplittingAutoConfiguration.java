@@ -0,0 +1,60 @@
+package cloud.agileframework.data.common.config;
+
+import cloud.agileframework.data.common.routing.LoadBalancer;
+import cloud.agileframework.data.common.routing.ReadWriteRoutingAspect;
+import cloud.agileframework.data.common.routing.ReadWriteRoutingDataSource;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 18:36
+ * 描述 读写分离，注册路由切面与从库负载均衡策略；配置了主库与从库的bean名称时，
+ * 组装读写分离数据源作为首选数据源，并以LazyConnectionDataSourceProxy包装，
+ * 使事务开启时不立即获取连接，而是在第一条语句执行时按当时的路由状态选择主库或从库
+ * @version 1.0
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnClass(Aspect.class)
+@ConditionalOnProperty(prefix = "agile.data.read-write", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadWriteSplittingProperties.class)
+public class ReadWriteSplittingAutoConfiguration {
+    @Bean
+    ReadWriteRoutingAspect readWriteRoutingAspect() {
+        return new ReadWriteRoutingAspect();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(LoadBalancer.class)
+    LoadBalancer loadBalancer(ReadWriteSplittingProperties properties) {
+        if (properties.getLoadBalance() == ReadWriteSplittingProperties.Strategy.RANDOM) {
+            return LoadBalancer.random();
+        }
+        return LoadBalancer.roundRobin();
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnClass(LazyConnectionDataSourceProxy.class)
+    @ConditionalOnProperty(prefix = "agile.data.read-write", name = "primary")
+    DataSource readWriteRoutingDataSource(ReadWriteSplittingProperties properties, LoadBalancer loadBalancer, BeanFactory beanFactory) {
+        DataSource primary = beanFactory.getBean(properties.getPrimary(), DataSource.class);
+        List<DataSource> replicas = properties.getReplicas().stream()
+                .map(name -> beanFactory.getBean(name, DataSource.class))
+                .collect(Collectors.toList());
+        return new ReadWriteRoutingDataSource(primary, replicas, loadBalancer, properties.getStickyMillis()).lazy();
+    }
+}
@@ -0,0 +1,88 @@
+package cloud.agileframework.data.common.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 18:30
+ * 描述 读写分离配置
+ * @version 1.0
+ * @since 1.0
+ */
+@ConfigurationProperties(prefix = "agile.data.read-write")
+public class ReadWriteSplittingProperties {
+    /**
+     * 是否开启读写分离
+     */
+    private boolean enabled;
+    /**
+     * 主库数据源的bean名称，与replicas同时配置时自动组装读写分离数据源
+     */
+    private String primary;
+    /**
+     * 从库数据源的bean名称
+     */
+    private List<String> replicas = new ArrayList<>();
+    /**
+     * 写操作后读操作仍走主库的时间窗口，毫秒
+     */
+    private long stickyMillis = 1000;
+    /**
+     * 从库负载均衡策略
+     */
+    private Strategy loadBalance = Strategy.ROUND_ROBIN;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getPrimary() {
+        return primary;
+    }
+
+    public void setPrimary(String primary) {
+        this.primary = primary;
+    }
+
+    public List<String> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<String> replicas) {
+        this.replicas = replicas;
+    }
+
+    public long getStickyMillis() {
+        return stickyMillis;
+    }
+
+    public void setStickyMillis(long stickyMillis) {
+        this.stickyMillis = stickyMillis;
+    }
+
+    public Strategy getLoadBalance() {
+        return loadBalance;
+    }
+
+    public void setLoadBalance(Strategy loadBalance) {
+        this.loadBalance = loadBalance;
+    }
+
+    public enum Strategy {
+        /**
+         * 轮询
+         */
+        ROUND_ROBIN,
+        /**
+         * 随机
+         */
+        RANDOM
+    }
+}
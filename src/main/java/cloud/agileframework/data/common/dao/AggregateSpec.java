@@ -0,0 +1,123 @@
+package cloud.agileframework.data.common.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/06 14:18
+ * 描述 聚合查询描述，由聚合项与分组字段组成，字段均为字段名或属性名，例如
+ * AggregateSpec.of().groupBy("status").count("total").sum("amount")
+ * @version 1.0
+ * @since 1.0
+ */
+public class AggregateSpec {
+    private final List<Item> items = new ArrayList<>();
+    private final List<String> groupBy = new ArrayList<>();
+
+    public static AggregateSpec of() {
+        return new AggregateSpec();
+    }
+
+    /**
+     * count(*)
+     *
+     * @param alias 结果列名
+     * @return this
+     */
+    public AggregateSpec count(String alias) {
+        return add(Function.COUNT, null, alias);
+    }
+
+    public AggregateSpec sum(String column) {
+        return add(Function.SUM, column, null);
+    }
+
+    public AggregateSpec sum(String column, String alias) {
+        return add(Function.SUM, column, alias);
+    }
+
+    public AggregateSpec min(String column) {
+        return add(Function.MIN, column, null);
+    }
+
+    public AggregateSpec min(String column, String alias) {
+        return add(Function.MIN, column, alias);
+    }
+
+    public AggregateSpec max(String column) {
+        return add(Function.MAX, column, null);
+    }
+
+    public AggregateSpec max(String column, String alias) {
+        return add(Function.MAX, column, alias);
+    }
+
+    public AggregateSpec avg(String column) {
+        return add(Function.AVG, column, null);
+    }
+
+    public AggregateSpec avg(String column, String alias) {
+        return add(Function.AVG, column, alias);
+    }
+
+    /**
+     * 分组字段，同时作为结果列输出
+     *
+     * @param columns 字段名或属性名
+     * @return this
+     */
+    public AggregateSpec groupBy(String... columns) {
+        groupBy.addAll(Arrays.asList(columns));
+        return this;
+    }
+
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public List<String> getGroupBy() {
+        return Collections.unmodifiableList(groupBy);
+    }
+
+    private AggregateSpec add(Function function, String column, String alias) {
+        if (alias == null) {
+            alias = column == null ? function.name().toLowerCase() : function.name().toLowerCase() + "_" + column;
+        }
+        items.add(new Item(function, column, alias));
+        return this;
+    }
+
+    public enum Function {
+        COUNT, SUM, MIN, MAX, AVG
+    }
+
+    public static class Item {
+        private final Function function;
+        private final String column;
+        private final String alias;
+
+        Item(Function function, String column, String alias) {
+            this.function = function;
+            this.column = column;
+            this.alias = alias;
+        }
+
+        public Function getFunction() {
+            return function;
+        }
+
+        /**
+         * @return 字段名或属性名，count(*)时为null
+         */
+        public String getColumn() {
+            return column;
+        }
+
+        public String getAlias() {
+            return alias;
+        }
+    }
+}
@@ -3,17 +3,42 @@ package cloud.agileframework.data.common.dao;
 import cloud.agileframework.common.util.clazz.ClassUtil;
 import cloud.agileframework.common.util.clazz.TypeReference;
 import cloud.agileframework.common.util.object.ObjectUtil;
+import cloud.agileframework.data.common.bulk.AdaptiveBatchSizer;
+import cloud.agileframework.data.common.bulk.BulkImporter;
+import cloud.agileframework.data.common.bulk.ImportFormat;
+import cloud.agileframework.data.common.bulk.ImportListener;
+import cloud.agileframework.data.common.bulk.ImportOptions;
+import cloud.agileframework.data.common.bulk.ImportResult;
 import cloud.agileframework.data.common.dictionary.DataExtendManager;
+import cloud.agileframework.data.common.export.ExportFormat;
+import cloud.agileframework.data.common.export.ExportWriter;
+import cloud.agileframework.data.common.id.IdGenerator;
+import cloud.agileframework.data.common.metadata.EntityMetadata;
+import cloud.agileframework.data.common.metadata.EntityMetadataRegistry;
+import cloud.agileframework.data.common.shard.ShardContext;
+import cloud.agileframework.data.common.shard.ShardingRule;
+import cloud.agileframework.data.common.shard.Shards;
+import cloud.agileframework.data.common.sync.SyncOptions;
+import cloud.agileframework.data.common.sync.SyncResult;
+import cloud.agileframework.data.common.sync.TableSynchronizer;
+import cloud.agileframework.data.common.timeout.Deadline;
 import com.alibaba.druid.DbType;
 import com.alibaba.druid.sql.PagerUtils;
 import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLExpr;
 import com.alibaba.druid.sql.ast.SQLOrderBy;
 import com.alibaba.druid.sql.ast.SQLOrderingSpecification;
+import com.alibaba.druid.sql.ast.expr.SQLAggregateExpr;
+import com.alibaba.druid.sql.ast.expr.SQLAllColumnExpr;
 import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
 import com.alibaba.druid.sql.ast.expr.SQLBinaryOperator;
+import com.alibaba.druid.sql.ast.expr.SQLInListExpr;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
+import com.alibaba.druid.sql.ast.expr.SQLNullExpr;
 import com.alibaba.druid.sql.ast.statement.SQLDeleteStatement;
 import com.alibaba.druid.sql.ast.statement.SQLExprTableSource;
 import com.alibaba.druid.sql.ast.statement.SQLInsertStatement;
+import com.alibaba.druid.sql.ast.statement.SQLSelectGroupByClause;
 import com.alibaba.druid.sql.ast.statement.SQLSelectItem;
 import com.alibaba.druid.sql.ast.statement.SQLSelectQueryBlock;
 import com.alibaba.druid.sql.ast.statement.SQLUpdateSetItem;
@@ -23,25 +48,54 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author 佟盟 on 2017/11/15
@@ -50,8 +104,110 @@ public interface BaseDao {
 
     Map<Class<?>, PagingAndSortingRepository> REPOSITORY_CACHE = new HashMap<>();
 
+    Map<Class<?>, Field> ID_FIELD_CACHE = new ConcurrentHashMap<>();
+
     DataExtendManager dictionaryManager();
 
+    /**
+     * 实体快照容器，返回非空时开启脏字段跟踪，查询出的实体会记录原始字段值，
+     * update时只写入发生变化的字段
+     *
+     * @return 快照容器，默认不开启
+     */
+    default EntitySnapshots snapshots() {
+        return null;
+    }
+
+    /**
+     * 记录实体或实体集合的快照，未开启脏字段跟踪时不做处理；
+     * 需在字典翻译之前调用，快照中保留数据库中的原始值
+     *
+     * @param o 实体或实体集合
+     */
+    default void snapshot(Object o) {
+        EntitySnapshots snapshots = snapshots();
+        if (snapshots == null || o == null) {
+            return;
+        }
+        if (o instanceof Iterable) {
+            for (Object entity : (Iterable<?>) o) {
+                snapshot(entity);
+            }
+            return;
+        }
+        snapshots.track(o, new TableWrapper<>(o, this::toColumnNames, this::tableNameOf).getValues());
+    }
+
+    /**
+     * 事务级标识映射，不为空时同一事务内重复的主键查询与存在性判断直接由已加载数据应答
+     *
+     * @return 标识映射
+     */
+    default IdentityMap identityMap() {
+        return null;
+    }
+
+    /**
+     * 从事务级标识映射中查询
+     *
+     * @param tableClass 实体类型
+     * @param id         主键
+     * @param <T>        实体类型
+     * @return 查询结果，未缓存时isHit为false；已确认不存在时命中且实体为null
+     */
+    default <T> IdentityMap.Lookup<T> cachedIdentity(Class<T> tableClass, Object id) {
+        IdentityMap identityMap = identityMap();
+        if (identityMap == null || id == null) {
+            return IdentityMap.Lookup.miss();
+        }
+        try {
+            return identityMap.find(tableClass, toIdType(tableClass, id));
+        } catch (NoSuchFieldException e) {
+            return IdentityMap.Lookup.miss();
+        }
+    }
+
+    /**
+     * 将实体记入事务级标识映射
+     *
+     * @param tableClass 实体类型
+     * @param id         主键
+     * @param entity     实体，为null时记录为不存在
+     */
+    default void cacheIdentity(Class<?> tableClass, Object id, Object entity) {
+        IdentityMap identityMap = identityMap();
+        if (identityMap == null || id == null) {
+            return;
+        }
+        try {
+            identityMap.put(tableClass, toIdType(tableClass, id), entity);
+        } catch (NoSuchFieldException ignored) {
+            // 没有主键的实体不做缓存
+        }
+    }
+
+    /**
+     * 移除事务级标识映射中实体类型的全部数据，用于影响范围无法确定的批量写
+     *
+     * @param tableClass 实体类型
+     */
+    default void evictIdentity(Class<?> tableClass) {
+        IdentityMap identityMap = identityMap();
+        if (identityMap != null) {
+            identityMap.evict(tableClass);
+        }
+    }
+
+    /**
+     * 清空当前事务的标识映射，用于影响范围无法确定的原生sql写
+     */
+    default void clearIdentity() {
+        IdentityMap identityMap = identityMap();
+        if (identityMap != null) {
+            identityMap.clear();
+        }
+    }
+
     /**
      * 根据java类型获取对应的数据库表的JpaRepository对象
      *
@@ -89,7 +245,17 @@ public interface BaseDao {
         if (iterator.hasNext()) {
             T obj = iterator.next();
             Class<T> tClass = (Class<T>) obj.getClass();
-            getRepository(tClass).saveAll(list);
+            assignIds(list);
+            if (shardingRule(tClass) != null) {
+                // 分片实体逐行路由到分片键所在分片
+                for (T o : list) {
+                    saveAndReturn(o, false);
+                }
+                return true;
+            }
+            Iterable<T> saved = getRepository(tClass).saveAll(list);
+            evictIdentity(tClass);
+            snapshot(saved);
             isTrue = true;
 
         }
@@ -103,16 +269,157 @@ public interface BaseDao {
      */
     Connection getConnection();
 
+    /**
+     * 归还getConnection取得的数据库连接，默认不做处理，连接由事务或会话管理；
+     * 实现类每次从连接池新取连接时需覆盖此方法关闭连接
+     *
+     * @param connection 数据库连接
+     */
+    default void releaseConnection(Connection connection) {
+    }
+
+    /**
+     * 基于jdbc游标查询时每次从数据库获取的行数
+     *
+     * @return 行数，0表示使用驱动默认值
+     */
+    default int fetchSize() {
+        return 0;
+    }
+
+    /**
+     * 根据sql语句基于只进只读游标查询，由extractor直接读取结果集，
+     * 查询超时取自当前线程的Deadline；实现类自行创建的语句由DeadlineDataSource包装的数据源设置，
+     * 未使用该包装时需自行通过Deadline.apply设置
+     *
+     * @param sql        查询的sql语句，参数使用？占位
+     * @param extractor  结果集处理器
+     * @param parameters 对象数组形式参数集合
+     * @param <R>        处理结果类型
+     * @return 处理结果
+     */
+    default <R> R queryBySQL(String sql, ResultSetExtractor<R> extractor, Object... parameters) {
+        Connection connection = getConnection();
+        try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            if (fetchSize() != 0) {
+                statement.setFetchSize(fetchSize());
+            }
+            if (parameters != null) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+            }
+            Deadline.apply(statement);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return extractor.extract(resultSet);
+            } finally {
+                Deadline.release(statement);
+            }
+        } catch (SQLException e) {
+            throw Deadline.translate(e);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * 根据sql语句导出查询结果，直接从游标读取并编码写出，不创建实体或Map，
+     * 大数据量导出时需通过fetchSize开启驱动的流式读取
+     *
+     * @param sql        查询的sql语句，参数使用？占位
+     * @param parameters 对象数组形式参数集合
+     * @param format     导出格式
+     * @param out        输出流
+     * @return 导出的行数
+     */
+    default long exportBySQL(String sql, Object[] parameters, ExportFormat format, OutputStream out) {
+        return exportBySQL(sql, parameters, format, Channels.newChannel(out));
+    }
+
+    /**
+     * 根据sql语句导出查询结果
+     *
+     * @param sql        查询的sql语句，参数使用？占位
+     * @param parameters 对象数组形式参数集合
+     * @param format     导出格式
+     * @param channel    输出通道
+     * @return 导出的行数
+     */
+    default long exportBySQL(String sql, Object[] parameters, ExportFormat format, WritableByteChannel channel) {
+        return queryBySQL(sql, resultSet -> new ExportWriter(channel, format).write(resultSet, null), parameters);
+    }
+
+    /**
+     * 按照例子导出查询结果，字典翻译在写出每个值时进行
+     *
+     * @param object 例子对象
+     * @param sort   排序
+     * @param format 导出格式
+     * @param out    输出流
+     * @param <T>    查询的表的映射实体类型
+     * @return 导出的行数
+     */
+    default <T> long exportByExample(T object, Sort sort, ExportFormat format, OutputStream out) {
+        return exportByExample(object, sort, format, Channels.newChannel(out));
+    }
+
+    /**
+     * 按照例子导出查询结果，字典翻译在写出每个值时进行
+     *
+     * @param object  例子对象
+     * @param sort    排序
+     * @param format  导出格式
+     * @param channel 输出通道
+     * @param <T>     查询的表的映射实体类型
+     * @return 导出的行数
+     */
+    @SuppressWarnings("unchecked")
+    default <T> long exportByExample(T object, Sort sort, ExportFormat format, WritableByteChannel channel) {
+        if (object instanceof Class || object == null) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+        Class<?> tableClass = object.getClass();
+        String select = toSelectSql(object, sort, DbType.mysql);
+        ResultSetExtractor<Long> writer = resultSet -> {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            UnaryOperator<Object>[] covers = new UnaryOperator[metaData.getColumnCount()];
+            for (int i = 0; i < covers.length; i++) {
+                covers[i] = dictionaryManager().valueCover(tableClass, metaData.getColumnLabel(i + 1));
+            }
+            return new ExportWriter(channel, format).write(resultSet, covers);
+        };
+        ShardingRule rule = shardingRule(tableClass);
+        if (rule != null) {
+            // 流式导出只支持单分片，例子中需包含分片键
+            Integer target = targetShard(object, rule);
+            if (target == null) {
+                throw new UnsupportedOperationException("Export without shard key is not supported on sharded entity " + tableClass.getName());
+            }
+            String sql = rule.rewrite(select, tableNameOf(tableClass), target, DbType.mysql);
+            return ShardContext.on(target, () -> queryBySQL(sql, writer));
+        }
+        return queryBySQL(select, writer);
+    }
+
+    /**
+     * 根据sql语句查询列式紧凑结果集，适用于大结果集，相比List<Map<String, Object>>显著减少内存占用
+     *
+     * @param sql        查询的sql语句，参数为单个Map时使用{Map的key值}形式占位，否则使用？占位
+     * @param parameters Map类型参数或对象数组形式参数集合
+     * @return 列式结果集
+     */
+    default RowSet findRowSetBySQL(String sql, Object... parameters) {
+        NamedSql named = NamedSql.of(sql, parameters);
+        return queryBySQL(named.getSql(), RowSet::from, named.getParameters());
+    }
+
     default <T> boolean contains(T o) {
         if (o instanceof Class) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
         Class<T> aClass = (Class<T>) o.getClass();
-        PagingAndSortingRepository<T, Object> r = getRepository(aClass);
-
         try {
-            Object id = getId(o);
-            return r.existsById(id);
+            return existsById(aClass, getId(o));
         } catch (NoSuchFieldException | IllegalAccessException e) {
             e.printStackTrace();
         }
@@ -157,9 +464,25 @@ public interface BaseDao {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
         Class<T> aClass = (Class<T>) o.getClass();
-        PagingAndSortingRepository<T, Object> r = getRepository(aClass);
-        T newObject = r.save(o);
+        ShardingRule rule = shardingRule(aClass);
+        T newObject;
+        if (rule != null) {
+            NamedSql sql = toParameterizedInsertSql(o, DbType.mysql);
+            int shard = shardOf(o, rule);
+            String logicTable = tableNameOf(aClass);
+            ShardContext.on(shard, () -> updateBySQL(rule.rewrite(sql.getSql(), logicTable, shard, DbType.mysql), sql.getParameters()));
+            newObject = o;
+        } else {
+            PagingAndSortingRepository<T, Object> r = getRepository(aClass);
+            newObject = r.save(o);
+        }
+        snapshot(newObject);
         dictionaryManager().cover(newObject);
+        try {
+            cacheIdentity(aClass, getId(newObject), newObject);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            evictIdentity(aClass);
+        }
         return newObject;
     }
 
@@ -190,19 +513,121 @@ public interface BaseDao {
         if (iterator.hasNext()) {
             T obj = iterator.next();
             Class<T> clazz = (Class<T>) obj.getClass();
-            return Lists.newArrayList(getRepository(clazz).saveAll(list));
+            evictIdentity(clazz);
+            assignIds(list);
+            if (shardingRule(clazz) != null) {
+                List<T> saved = new ArrayList<>();
+                for (T o : list) {
+                    saved.add(saveAndReturn(o, false));
+                }
+                return saved;
+            }
+            List<T> saved = Lists.newArrayList(getRepository(clazz).saveAll(list));
+            snapshot(saved);
+            return saved;
         }
         return new ArrayList<>(0);
     }
 
     /**
-     * 根据表实体类型与主键值，判断数据是否存在
+     * 主键in查询每批次的主键个数，用于规避数据库in列表与绑定参数的长度限制
+     *
+     * @return 每批次主键个数
+     */
+    default int inClauseChunkSize() {
+        return 1000;
+    }
+
+    /**
+     * 根据表实体类型与主键值集合，批量判断数据是否存在，按inClauseChunkSize分批，每批一次查询
+     *
+     * @param tableClass 表对应的实体类型
+     * @param ids        数据主键集合
+     * @param <T>        表对应的实体类型
+     * @return 存在的主键集合，主键已转换为实体的主键类型
+     */
+    default <T> Set<Object> existsAllById(Class<T> tableClass, Iterable<?> ids) throws NoSuchFieldException {
+        Set<Object> idSet = new LinkedHashSet<>();
+        for (Object id : ids) {
+            if (id != null) {
+                idSet.add(toIdType(tableClass, id));
+            }
+        }
+        Set<Object> exists = new HashSet<>(idSet.size());
+        if (idSet.isEmpty()) {
+            return exists;
+        }
+
+        String tableName = tableNameOf(tableClass);
+        String idColumn = toIdColumnName(tableClass);
+        ShardingRule rule = shardingRule(tableClass);
+        Map<Integer, List<Object>> groups = rule == null
+                ? Collections.singletonMap(null, new ArrayList<>(idSet))
+                : shardsOfIds(tableClass, idSet, rule);
+        for (Map.Entry<Integer, List<Object>> group : groups.entrySet()) {
+            Integer shard = group.getKey();
+            String table = shard == null ? tableName : rule.tableName(tableName, shard);
+            for (List<Object> chunk : Lists.partition(group.getValue(), inClauseChunkSize())) {
+                Deadline.check();
+                String sql = toIdInSql(table, idColumn, false, chunk.size());
+                Supplier<List<Object>> query = () -> queryBySQL(sql, resultSet -> {
+                    List<Object> values = new ArrayList<>();
+                    while (resultSet.next()) {
+                        values.add(resultSet.getObject(1));
+                    }
+                    return values;
+                }, chunk.toArray());
+                for (Object id : shard == null ? query.get() : ShardContext.on(shard, query)) {
+                    exists.add(toIdType(tableClass, id));
+                }
+            }
+        }
+        return exists;
+    }
+
+    /**
+     * 批量判断对象是否存在，按主键分批查询
+     *
+     * @param list 表对应的实体类型的对象列表
+     * @param <T>  表对应的实体类型
+     * @return 与list顺序一致的是否存在标识
+     */
+    @SuppressWarnings("unchecked")
+    default <T> boolean[] containsAll(List<T> list) throws NoSuchFieldException, IllegalAccessException {
+        boolean[] result = new boolean[list.size()];
+        if (list.isEmpty()) {
+            return result;
+        }
+        Class<T> tableClass = (Class<T>) list.get(0).getClass();
+        Field idField = getIdField(tableClass);
+        List<Object> ids = new ArrayList<>(list.size());
+        for (T o : list) {
+            ids.add(idField.get(o));
+        }
+        Set<Object> exists = existsAllById(tableClass, ids);
+        for (int i = 0; i < result.length; i++) {
+            Object id = ids.get(i);
+            result[i] = id != null && exists.contains(toIdType(tableClass, id));
+        }
+        return result;
+    }
+
+    /**
+     * 根据表实体类型与主键值，判断数据是否存在，事务中已加载或已确认不存在的主键不再访问数据库
      *
      * @param tableClass 表对应的实体类型
      * @param id         数据主键
      * @return 是否存在
      */
     default <T> boolean existsById(Class<T> tableClass, Object id) throws NoSuchFieldException {
+        IdentityMap.Lookup<T> cached = cachedIdentity(tableClass, id);
+        if (cached.isHit()) {
+            return cached.getEntity() != null;
+        }
+        ShardingRule rule = shardingRule(tableClass);
+        if (rule != null) {
+            return findOneOfShard(tableClass, id, rule) != null;
+        }
         PagingAndSortingRepository<T, Object> r = getRepository(tableClass);
         return r.existsById(toIdType(tableClass, id));
     }
@@ -218,6 +643,38 @@ public interface BaseDao {
         if (o instanceof Class) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
+        ShardingRule rule = shardingRule(o.getClass());
+        if (rule != null) {
+            NamedSql sql = toParameterizedUpdateSql(o, DbType.mysql);
+            if (sql == null) {
+                return true;
+            }
+            int shard = shardOf(o, rule);
+            String logicTable = tableNameOf(o.getClass());
+            evictIdentity(o.getClass());
+            return ShardContext.on(shard, () -> updateBySQL(rule.rewrite(sql.getSql(), logicTable, shard, DbType.mysql), sql.getParameters())) > 0;
+        }
+
+        EntitySnapshots snapshots = snapshots();
+        Object[] original = snapshots == null ? null : snapshots.get(o);
+        if (original != null) {
+            TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
+            Object[] values = tableWrapper.getValues();
+            NamedSql sql = toUpdateSql(tableWrapper, original, DbType.mysql);
+            if (sql == null) {
+                return true;
+            }
+            boolean updated = updateBySQL(sql.getSql(), sql.getParameters()) > 0;
+            evictCache(o.getClass());
+            if (updated) {
+                snapshots.track(o, values);
+                cacheIdentity(o.getClass(), getId(o), o);
+            } else {
+                evictIdentity(o.getClass());
+            }
+            return updated;
+        }
+
         Class<T> aClass = (Class<T>) o.getClass();
         Object id = getId(o);
         if (existsById(aClass, id)) {
@@ -229,6 +686,58 @@ public interface BaseDao {
         return false;
     }
 
+    /**
+     * 按例子批量更新，生成单条 update ... set ... where ... 语句，不加载实体。
+     * criteria中的非空字段作为等值条件，patch中的非空非主键字段作为更新内容；
+     * 需要置空字段时请使用updateBySQL
+     *
+     * @param criteria 条件例子，至少包含一个非空字段
+     * @param patch    更新内容，与criteria同类型
+     * @param <T>      表对应的实体类型
+     * @return 影响行数
+     */
+    @SuppressWarnings("unchecked")
+    default <T> int updateByExample(T criteria, T patch) {
+        if (criteria instanceof Class || patch instanceof Class || criteria == null || patch == null) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+        if (criteria.getClass() != patch.getClass()) {
+            throw new IllegalArgumentException("Criteria and patch must be of the same type");
+        }
+        Class<T> tableClass = (Class<T>) criteria.getClass();
+        NamedSql sql = toUpdateByExampleSql(criteria, patch, DbType.mysql);
+        if (sql == null) {
+            return 0;
+        }
+
+        int count;
+        ShardingRule rule = shardingRule(tableClass);
+        if (rule != null) {
+            String logicTable = tableNameOf(tableClass);
+            Integer target = targetShard(criteria, rule);
+            if (target != null) {
+                count = ShardContext.on(target, () -> updateBySQL(rule.rewrite(sql.getSql(), logicTable, target, DbType.mysql), sql.getParameters()));
+            } else {
+                count = Shards.scatter(rule.getShardCount(), shardExecutor(),
+                        shard -> updateBySQL(rule.rewrite(sql.getSql(), logicTable, shard, DbType.mysql), sql.getParameters()))
+                        .stream().mapToInt(Integer::intValue).sum();
+            }
+        } else {
+            count = updateBySQL(sql.getSql(), sql.getParameters());
+        }
+        evictIdentity(tableClass);
+        evictCache(tableClass);
+        return count;
+    }
+
+    /**
+     * 清除实体类型的二级缓存与查询结果缓存，在不经过ORM的批量写之后调用，默认不做处理，由具体实现覆盖
+     *
+     * @param tableClass 实体类型
+     */
+    default void evictCache(Class<?> tableClass) {
+    }
+
     /**
      * 更新或新增非空字段，空字段不进行更新
      *
@@ -264,7 +773,32 @@ public interface BaseDao {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
         Class<T> aClass = (Class<T>) o.getClass();
-        getRepository(aClass).delete(o);
+        ShardingRule rule = shardingRule(aClass);
+        if (rule != null) {
+            try {
+                SQLDeleteStatement delete = new SQLDeleteStatement();
+                delete.setTableSource(new SQLExprTableSource(tableNameOf(aClass)));
+                delete.setWhere(new SQLBinaryOpExpr(SQLUtils.toSQLExpr(toIdColumnName(aClass)), SQLBinaryOperator.Equality, new SQLVariantRefExpr("?")));
+                String sql = SQLUtils.toSQLString(delete, DbType.mysql);
+                Object id = getId(o);
+                int shard = shardOf(o, rule);
+                String logicTable = tableNameOf(aClass);
+                ShardContext.on(shard, () -> updateBySQL(rule.rewrite(sql, logicTable, shard, DbType.mysql), id));
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new IllegalArgumentException(e);
+            }
+        } else {
+            getRepository(aClass).delete(o);
+        }
+        try {
+            cacheIdentity(aClass, getId(o), null);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            evictIdentity(aClass);
+        }
+        EntitySnapshots snapshots = snapshots();
+        if (snapshots != null) {
+            snapshots.remove(o);
+        }
     }
 
     /**
@@ -275,12 +809,18 @@ public interface BaseDao {
      * @param <T>        查询的目标表对应实体类型
      */
     default <T> boolean deleteById(Class<T> tableClass, Object id) {
-        PagingAndSortingRepository<T, Object> repository = getRepository(tableClass);
+        ShardingRule rule = shardingRule(tableClass);
         try {
-            repository.deleteById(toIdType(tableClass, id));
+            if (rule != null) {
+                deleteByIdOfShards(tableClass, toIdType(tableClass, id), rule);
+            } else {
+                getRepository(tableClass).deleteById(toIdType(tableClass, id));
+            }
         } catch (Exception e) {
+            evictIdentity(tableClass);
             return false;
         }
+        cacheIdentity(tableClass, id, null);
         return true;
     }
 
@@ -291,6 +831,17 @@ public interface BaseDao {
      * @param <T>        查询的目标表对应实体类型
      */
     default <T> void deleteAll(Class<T> tableClass) {
+        evictIdentity(tableClass);
+        ShardingRule rule = shardingRule(tableClass);
+        if (rule != null) {
+            String logicTable = tableNameOf(tableClass);
+            SQLDeleteStatement delete = new SQLDeleteStatement();
+            delete.setTableSource(new SQLExprTableSource(logicTable));
+            String sql = SQLUtils.toSQLString(delete, DbType.mysql);
+            Shards.scatter(rule.getShardCount(), shardExecutor(), shard -> updateBySQL(rule.rewrite(sql, logicTable, shard, DbType.mysql)));
+            evictCache(tableClass);
+            return;
+        }
         getRepository(tableClass).deleteAll();
     }
 
@@ -319,11 +870,18 @@ public interface BaseDao {
         if (ids == null) {
             return;
         }
-        PagingAndSortingRepository<T, Object> repository = getRepository(tableClass);
+        evictIdentity(tableClass);
         Set<Object> set = Sets.newHashSet();
         for (Object id : ids) {
             set.add(toIdType(tableClass, id));
         }
+        ShardingRule rule = shardingRule(tableClass);
+        if (rule != null) {
+            deleteAllByIdOfShards(tableClass, new ArrayList<>(set), inClauseChunkSize(), rule);
+            evictCache(tableClass);
+            return;
+        }
+        PagingAndSortingRepository<T, Object> repository = getRepository(tableClass);
         repository.deleteAllById(set);
     }
 
@@ -337,7 +895,13 @@ public interface BaseDao {
         if (Iterables.isEmpty(list)) {
             return;
         }
-        PagingAndSortingRepository<T, Object> repository = (PagingAndSortingRepository<T, Object>) getRepository(list.iterator().next().getClass());
+        Class<?> tableClass = list.iterator().next().getClass();
+        if (shardingRule(tableClass) != null) {
+            deleteAllOfShards(list);
+            return;
+        }
+        evictIdentity(tableClass);
+        PagingAndSortingRepository<T, Object> repository = (PagingAndSortingRepository<T, Object>) getRepository(tableClass);
         repository.deleteAll(list);
     }
 
@@ -350,12 +914,42 @@ public interface BaseDao {
      * @return clazz类型对象
      */
     default <T> T findOne(Class<T> clazz, Object id) {
-        PagingAndSortingRepository<T, Object> repository = getRepository(clazz);
-        T newObject = repository.findById(id).orElse(null);
+        IdentityMap.Lookup<T> cached = cachedIdentity(clazz, id);
+        if (cached.isHit()) {
+            return cached.getEntity();
+        }
+        ShardingRule rule = shardingRule(clazz);
+        EntityLoader loader = entityLoader();
+        T newObject;
+        if (rule == null && loader != null && id != null && loader.isApplicable()) {
+            // 合并查询内部经findAllById完成字典转换与快照
+            try {
+                return loader.load(clazz, id);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        if (rule != null) {
+            newObject = findOneOfShard(clazz, id, rule);
+        } else {
+            PagingAndSortingRepository<T, Object> repository = getRepository(clazz);
+            newObject = repository.findById(id).orElse(null);
+        }
+        snapshot(newObject);
         dictionaryManager().cover(newObject);
+        cacheIdentity(clazz, id, newObject);
         return newObject;
     }
 
+    /**
+     * 主键查询合并器，不为空时非事务中的findOne(Class, id)合并为批量主键查询
+     *
+     * @return 合并器
+     */
+    default EntityLoader entityLoader() {
+        return null;
+    }
+
     /**
      * 按照例子查询单条
      *
@@ -368,10 +962,20 @@ public interface BaseDao {
         if (object instanceof Class) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
-        PagingAndSortingRepository<T, Object> repository = (PagingAndSortingRepository<T, Object>) getRepository(object.getClass());
+        Class<T> tableClass = (Class<T>) object.getClass();
+        ShardingRule rule = shardingRule(tableClass);
         try {
-            T newObject = repository.findById(getId(object)).orElse(null);
+            Object id = getId(object);
+            IdentityMap.Lookup<T> cached = cachedIdentity(tableClass, id);
+            if (cached.isHit()) {
+                return cached.getEntity();
+            }
+            T newObject = rule != null
+                    ? findOneOfShard(tableClass, id, rule)
+                    : getRepository(tableClass).findById(id).orElse(null);
+            snapshot(newObject);
             dictionaryManager().cover(newObject);
+            cacheIdentity(tableClass, id, newObject);
             return newObject;
         } catch (NoSuchFieldException | IllegalAccessException e) {
             e.printStackTrace();
@@ -391,6 +995,7 @@ public interface BaseDao {
     @SuppressWarnings("unchecked")
     default <T> T findOne(String sql, Class<T> clazz, Object... parameters) {
         T newObject = findBySQL(sql, clazz, parameters).stream().findFirst().orElse(null);
+        snapshot(newObject);
         dictionaryManager().cover(newObject);
         return newObject;
     }
@@ -406,7 +1011,10 @@ public interface BaseDao {
         if (object instanceof Class) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
-        List<T> content = findBySQL(toSelectSql(object, Sort.unsorted(), DbType.mysql), (Class<T>) object.getClass(), null);
+        List<T> content = shardingRule(object.getClass()) != null
+                ? findAllOfShards(object, Sort.unsorted(), 0, -1)
+                : findBySQL(toSelectSql(object, Sort.unsorted(), DbType.mysql), (Class<T>) object.getClass(), null);
+        snapshot(content);
         dictionaryManager().cover(content);
         return content;
     }
@@ -415,11 +1023,74 @@ public interface BaseDao {
         if (object instanceof Class) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
-        List<T> content = findBySQL(toSelectSql(object, sort, DbType.mysql), (Class<T>) object.getClass(), null);
+        List<T> content = shardingRule(object.getClass()) != null
+                ? findAllOfShards(object, sort, 0, -1)
+                : findBySQL(toSelectSql(object, sort, DbType.mysql), (Class<T>) object.getClass(), null);
+        snapshot(content);
         dictionaryManager().cover(content);
         return content;
     }
 
+    /**
+     * 按照例子查询多条，只查询指定字段
+     *
+     * @param object  例子对象
+     * @param sort    排序对象
+     * @param columns 需要查询的字段名或属性名，为空时查询全部字段
+     * @param <T>     查询的表的映射实体类型
+     * @return 查询结果数据集合，未查询的字段为空
+     */
+    @SuppressWarnings("unchecked")
+    default <T> List<T> findAll(T object, Sort sort, String... columns) {
+        if (object instanceof Class) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+        rejectSharded(object.getClass(), "Projection queries");
+        List<T> content = findBySQL(toSelectSql(object, sort, DbType.mysql, columns), (Class<T>) object.getClass(), null);
+        snapshot(content);
+        dictionaryManager().cover(content, columns);
+        return content;
+    }
+
+    /**
+     * 按照例子查询多条，并投影为指定的DTO或接口类型
+     *
+     * @param object     例子对象
+     * @param sort       排序对象
+     * @param projection 投影类型，DTO类型或只包含getter方法的接口
+     * @param columns    需要查询的字段名或属性名，为空时按投影类型的属性推导
+     * @param <T>        查询的表的映射实体类型
+     * @param <R>        投影类型
+     * @return 投影结果集合
+     */
+    @SuppressWarnings("unchecked")
+    default <T, R> List<R> findAll(T object, Sort sort, Class<R> projection, String... columns) {
+        if (object instanceof Class) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+        Class<T> tableClass = (Class<T>) object.getClass();
+        rejectSharded(tableClass, "Projection queries");
+        List<ColumnName> columnNames = toColumnNames(tableClass);
+        if (columns == null || columns.length == 0) {
+            columns = Projections.columnsOf(projection, columnNames);
+        }
+        String sql = toSelectSql(object, sort, DbType.mysql, columns);
+
+        List<R> content;
+        if (projection.isInterface()) {
+            // 先读为实体完成投影字段的字典翻译，再包装为接口
+            List<T> entities = findBySQL(sql, tableClass, null);
+            dictionaryManager().cover(entities, columns);
+            content = entities.stream()
+                    .map(entity -> Projections.proxy(projection, entity, columnNames))
+                    .collect(Collectors.toList());
+        } else {
+            content = findBySQL(sql, projection, null);
+            dictionaryManager().cover(content, columns);
+        }
+        return content;
+    }
+
     /**
      * 按照例子查询多条分页
      *
@@ -450,9 +1121,64 @@ public interface BaseDao {
         if (object instanceof Class) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
+        if (shardingRule(object.getClass()) != null) {
+            return pageOfShards(object, PageRequest.of(page, size, sort));
+        }
         return page(object, PageRequest.of(page, size, sort));
     }
 
+    /**
+     * 分片表的按例子分页，各分片并发查询前offset+size条后多路归并
+     *
+     * @param object      例子对象
+     * @param pageRequest 分页信息
+     * @param <T>         查询的表的映射实体类型
+     * @return 分页信息
+     */
+    @SuppressWarnings("unchecked")
+    default <T> Page<T> pageOfShards(T object, PageRequest pageRequest) {
+        Class<T> tableClass = (Class<T>) object.getClass();
+        String select = toSelectSql(object, pageRequest.getSort(), DbType.mysql);
+        return pageOfShards(tableClass, select, targetShard(object, shardingRule(tableClass)), pageRequest);
+    }
+
+    /**
+     * 分片表按逻辑表上的查询sql分页
+     *
+     * @param tableClass  实体类型
+     * @param select      逻辑表上的查询sql，包含排序
+     * @param target      目标分片，为空时分发到全部分片
+     * @param pageRequest 分页信息
+     * @param <T>         查询的表的映射实体类型
+     * @return 分页信息
+     */
+    default <T> Page<T> pageOfShards(Class<T> tableClass, String select, Integer target, PageRequest pageRequest) {
+        ShardingRule rule = shardingRule(tableClass);
+        String countSql = PagerUtils.count(select, DbType.mysql);
+        String logicTable = tableNameOf(tableClass);
+
+        long total;
+        if (target != null) {
+            total = ShardContext.on(target, () -> countOf(rule.rewrite(countSql, logicTable, target, DbType.mysql)));
+        } else {
+            total = Shards.scatter(rule.getShardCount(), shardExecutor(), shard -> countOf(rule.rewrite(countSql, logicTable, shard, DbType.mysql)))
+                    .stream().mapToLong(Long::longValue).sum();
+        }
+        List<T> content = findAllOfShards(tableClass, select, target, pageRequest.getSort(), pageRequest.getOffset(), pageRequest.getPageSize());
+        snapshot(content);
+        dictionaryManager().cover(content);
+        return new PageImpl<>(content, pageRequest, total);
+    }
+
+    /**
+     * 按照例子对象查询分页，分片实体由page(T, int, int, Sort)路由到pageOfShards，
+     * 实现类需在shardingRule不为空时同样委托给pageOfShards
+     *
+     * @param object      例子对象
+     * @param pageRequest 分页信息
+     * @param <T>         查询的表的映射实体类型
+     * @return 分页信息
+     */
     <T> Page<T> page(T object, PageRequest pageRequest);
 
     /**
@@ -464,6 +1190,9 @@ public interface BaseDao {
      * @return 内容为实体的Page类型分页结果
      */
     default <T> Page<T> pageByClass(Class<T> tableClass, PageRequest pageRequest) {
+        if (shardingRule(tableClass) != null) {
+            return pageOfShards(tableClass, toSelectAllSql(tableClass, pageRequest.getSort(), DbType.mysql), null, pageRequest);
+        }
         Page<T> pageInfo = getRepository(tableClass).findAll(pageRequest);
         dictionaryManager().cover(pageInfo.getContent());
         return pageInfo;
@@ -505,9 +1234,7 @@ public interface BaseDao {
      * @return 内容为实体的List类型结果集
      */
     default <T> List<T> findAllByClass(Class<T> tableClass) {
-        Iterable<T> list = getRepository(tableClass).findAll();
-        dictionaryManager().cover(list);
-        return Lists.newArrayList(list);
+        return findAllByClass(tableClass, Sort.unsorted());
     }
 
     /**
@@ -519,7 +1246,10 @@ public interface BaseDao {
      * @return 内容为实体的List类型结果集
      */
     default <T> List<T> findAllByClass(Class<T> tableClass, Sort sort) {
-        Iterable<T> list = getRepository(tableClass).findAll(sort);
+        Iterable<T> list = shardingRule(tableClass) != null
+                ? findAllOfShards(tableClass, toSelectAllSql(tableClass, sort, DbType.mysql), null, sort, 0, -1)
+                : getRepository(tableClass).findAll(sort);
+        snapshot(list);
         dictionaryManager().cover(list);
         return Lists.newArrayList(list);
     }
@@ -550,7 +1280,8 @@ public interface BaseDao {
     List<Map<String, Object>> findBySQL(String sql, Object... parameters);
 
     /**
-     * sql形式写操作
+     * sql形式写操作，经Spring代理调用时由IdentityMapAspect在执行后清空事务级标识映射；
+     * 实现类在代理之外被调用（如内部自调用）时需在写入后调用clearIdentity
      *
      * @param sql        查询的sql语句，参数使用？占位
      * @param parameters 对象数组形式参数集合
@@ -567,7 +1298,15 @@ public interface BaseDao {
      * @return 返回查询出的实体列表
      */
     default <T> List<T> findAllById(Class<T> tableClass, Iterable<Object> ids) {
+        if (shardingRule(tableClass) != null) {
+            try {
+                return findAllById(tableClass, ids, new IdFetchOptions());
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
         Iterable<T> list = getRepository(tableClass).findAllById(ids);
+        snapshot(list);
         dictionaryManager().cover(list);
         return Lists.newArrayList(list);
     }
@@ -576,14 +1315,210 @@ public interface BaseDao {
      * 根据实体类型tableClass与主键值集合ids，查询实体列表
      *
      * @param tableClass 查询的目标表对应实体类型，Entity
-     * @param ids        主键值集合，数组类型
+     * @param ids        主键值集合，数组类型，重复的主键只返回一次
      * @param <T>        目标表对应实体类型
-     * @return 返回查询出的实体列表
+     * @return 返回查询出的实体列表，按主键首次出现的顺序排列
      */
     default <T> List<T> findAllByArrayId(Class<T> tableClass, Object... ids) {
-        Iterable<T> list = getRepository(tableClass).findAllById(Sets.newHashSet(ids));
-        dictionaryManager().cover(list);
-        return Lists.newArrayList(list);
+        try {
+            Set<Object> distinct = new LinkedHashSet<>();
+            for (Object id : ids) {
+                if (id != null) {
+                    distinct.add(toIdType(tableClass, id));
+                }
+            }
+            return findAllById(tableClass, distinct, new IdFetchOptions());
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            Iterable<T> list = getRepository(tableClass).findAllById(Sets.newLinkedHashSet(Arrays.asList(ids)));
+            snapshot(list);
+            dictionaryManager().cover(list);
+            return Lists.newArrayList(list);
+        }
+    }
+
+    /**
+     * 根据实体类型tableClass与主键值集合ids，分批查询实体列表，结果顺序与ids一致
+     *
+     * @param tableClass 查询的目标表对应实体类型，Entity
+     * @param ids        主键值集合
+     * @param options    分批、并发与缺失数据处理策略
+     * @param <T>        目标表对应实体类型
+     * @return 与ids顺序一致的实体列表
+     */
+    default <T> List<T> findAllById(Class<T> tableClass, Iterable<?> ids, IdFetchOptions options) throws NoSuchFieldException, IllegalAccessException {
+        List<Object> requested = new ArrayList<>();
+        for (Object id : ids) {
+            requested.add(id == null ? null : toIdType(tableClass, id));
+        }
+        List<Object> distinct = requested.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        int chunkSize = options.getChunkSize() > 0 ? options.getChunkSize() : inClauseChunkSize();
+        List<List<Object>> chunks = Lists.partition(distinct, chunkSize);
+
+        ShardingRule rule = shardingRule(tableClass);
+        List<T> fetched = new ArrayList<>(distinct.size());
+        if (rule != null) {
+            fetched.addAll(findAllByIdOfShards(tableClass, distinct, chunkSize, rule));
+        } else if (!options.isConcurrent() || chunks.size() <= 1) {
+            PagingAndSortingRepository<T, Object> repository = getRepository(tableClass);
+            for (List<Object> chunk : chunks) {
+                Deadline.check();
+                repository.findAllById(chunk).forEach(fetched::add);
+            }
+        } else {
+            // 并发分块沿用调用方的截止时间；数据源经DeadlineDataSource包装时，各分块语句在线程池中创建时登记到该截止时间，
+            // 按剩余时间设置超时，取消调用方时一并取消
+            Deadline deadline = Deadline.current();
+            PagingAndSortingRepository<T, Object> repository = getRepository(tableClass);
+            List<CompletableFuture<Iterable<T>>> futures = chunks.stream()
+                    .map(chunk -> CompletableFuture.supplyAsync(() -> Deadline.bind(deadline, () -> repository.findAllById(chunk)), options.getExecutor()))
+                    .collect(Collectors.toList());
+            try {
+                for (CompletableFuture<Iterable<T>> future : futures) {
+                    future.join().forEach(fetched::add);
+                }
+            } catch (CompletionException e) {
+                futures.forEach(future -> future.cancel(true));
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        Map<Object, T> byId = new HashMap<>(fetched.size());
+        for (T entity : fetched) {
+            Object id = toIdType(tableClass, getId(entity));
+            byId.put(id, entity);
+            cacheIdentity(tableClass, id, entity);
+        }
+        List<T> result = new ArrayList<>(requested.size());
+        for (Object id : requested) {
+            T entity = id == null ? null : byId.get(id);
+            if (entity != null || options.getMissing() == IdFetchOptions.Missing.NULL) {
+                result.add(entity);
+            }
+        }
+        snapshot(fetched);
+        dictionaryManager().cover(fetched);
+        return result;
+    }
+
+    /**
+     * 增量读取，按水位字段、主键升序读取水位之后的一批数据。
+     * 条件形如 col >= v and (col > v or id > i)，在(水位字段, 主键)上建联合索引即可走范围扫描；
+     * 水位字段为空的数据不会被读取
+     *
+     * @param tableClass      实体类型
+     * @param watermarkColumn 水位字段名或属性名，如更新时间或单调递增的序号
+     * @param lastWatermark   上一批返回的水位，为空时从头读取
+     * @param batchSize       每批条数
+     * @param <T>             实体类型
+     * @return 本批数据及下一批水位
+     */
+    default <T> ChangeBatch<T> findChangedSince(Class<T> tableClass, String watermarkColumn, Watermark lastWatermark, int batchSize) throws NoSuchFieldException, IllegalAccessException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        EntityMetadata metadata = EntityMetadataRegistry.find(tableClass);
+        List<ColumnName> columns = toColumnNames(tableClass).stream()
+                .filter(c -> !TableWrapper.isTransient(c, metadata))
+                .collect(Collectors.toList());
+        ColumnName watermark = columns.stream().filter(c -> c.matches(watermarkColumn))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown watermark column " + watermarkColumn));
+        String idColumn = toIdColumnName(tableClass);
+        String tableName = tableNameOf(tableClass);
+
+        SQLSelectQueryBlock query = new SQLSelectQueryBlock();
+        query.setFrom(new SQLExprTableSource(tableName));
+        columns.stream().map(ColumnName::getName).forEach(e -> query.addSelectItem(new SQLSelectItem(SQLUtils.toSQLExpr(e))));
+        List<Object> parameters = new ArrayList<>(3);
+        if (lastWatermark != null && lastWatermark.getValue() != null) {
+            SQLExpr where = new SQLBinaryOpExpr(SQLUtils.toSQLExpr(watermark.getName()), SQLBinaryOperator.GreaterThan, new SQLVariantRefExpr("?"));
+            if (lastWatermark.getId() != null) {
+                SQLExpr tie = new SQLBinaryOpExpr(SQLUtils.toSQLExpr(idColumn), SQLBinaryOperator.GreaterThan, new SQLVariantRefExpr("?"));
+                where = new SQLBinaryOpExpr(
+                        new SQLBinaryOpExpr(SQLUtils.toSQLExpr(watermark.getName()), SQLBinaryOperator.GreaterThanOrEqual, new SQLVariantRefExpr("?")),
+                        SQLBinaryOperator.BooleanAnd,
+                        new SQLBinaryOpExpr(where, SQLBinaryOperator.BooleanOr, tie));
+                parameters.add(lastWatermark.getValue());
+                parameters.add(lastWatermark.getValue());
+                parameters.add(toIdType(tableClass, lastWatermark.getId()));
+            } else {
+                parameters.add(lastWatermark.getValue());
+            }
+            query.setWhere(where);
+        }
+        query.addOrderBy(new SQLOrderBy(SQLUtils.toSQLExpr(watermark.getName()), SQLOrderingSpecification.ASC));
+        query.addOrderBy(new SQLOrderBy(SQLUtils.toSQLExpr(idColumn), SQLOrderingSpecification.ASC));
+        String sql = PagerUtils.limit(SQLUtils.toSQLString(query, DbType.mysql), DbType.mysql, 0, batchSize);
+        Object[] values = parameters.toArray();
+
+        List<T> content;
+        ShardingRule rule = shardingRule(tableClass);
+        if (rule != null) {
+            List<List<T>> shardResults = Shards.scatter(rule.getShardCount(), shardExecutor(),
+                    shard -> findBySQL(rule.rewrite(sql, tableName, shard, DbType.mysql), tableClass, values));
+            Sort sort = Sort.by(Sort.Direction.ASC, watermark.getName(), idColumn);
+            content = Shards.merge(shardResults, Shards.comparator(sort, columns), 0, batchSize);
+        } else {
+            content = findBySQL(sql, tableClass, values);
+        }
+
+        Watermark next = lastWatermark;
+        if (!content.isEmpty()) {
+            T last = content.get(content.size() - 1);
+            TableWrapper<T> wrapper = new TableWrapper<>(last, this::toColumnNames, this::tableNameOf);
+            List<ColumnName> lastColumns = wrapper.getColumns();
+            for (int i = 0; i < lastColumns.size(); i++) {
+                if (lastColumns.get(i).matches(watermarkColumn)) {
+                    next = Watermark.of(wrapper.getValue(i), getId(last));
+                    break;
+                }
+            }
+        }
+        snapshot(content);
+        dictionaryManager().cover(content);
+        return new ChangeBatch<>(content, next, content.size() >= batchSize);
+    }
+
+    /**
+     * 流式增量读取，每消费一批后按其水位读取下一批，直至读到不满一批
+     *
+     * @param tableClass      实体类型
+     * @param watermarkColumn 水位字段名或属性名
+     * @param lastWatermark   起始水位，为空时从头读取
+     * @param batchSize       每批条数
+     * @param <T>             实体类型
+     * @return 按批次惰性读取的流，各批次携带可持久化的检查点水位
+     */
+    default <T> Stream<ChangeBatch<T>> streamChangedSince(Class<T> tableClass, String watermarkColumn, Watermark lastWatermark, int batchSize) {
+        Iterator<ChangeBatch<T>> iterator = new Iterator<ChangeBatch<T>>() {
+            private Watermark watermark = lastWatermark;
+            private boolean more = true;
+
+            @Override
+            public boolean hasNext() {
+                return more;
+            }
+
+            @Override
+            public ChangeBatch<T> next() {
+                if (!more) {
+                    throw new NoSuchElementException();
+                }
+                ChangeBatch<T> batch;
+                try {
+                    batch = findChangedSince(tableClass, watermarkColumn, watermark, batchSize);
+                } catch (NoSuchFieldException | IllegalAccessException e) {
+                    throw new IllegalArgumentException(e);
+                }
+                watermark = batch.getNext();
+                more = batch.hasMore();
+                return batch;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
     /**
@@ -593,9 +1528,393 @@ public interface BaseDao {
      * @return 查询条数
      */
     default long count(Class<?> tableClass) {
+        ShardingRule rule = shardingRule(tableClass);
+        if (rule != null) {
+            String logicTable = tableNameOf(tableClass);
+            String sql = "select count(*) from " + logicTable;
+            return Shards.scatter(rule.getShardCount(), shardExecutor(), shard -> countOf(rule.rewrite(sql, logicTable, shard, DbType.mysql)))
+                    .stream().mapToLong(Long::longValue).sum();
+        }
         return getRepository(tableClass).count();
     }
 
+    /**
+     * 按例子计数，例子中的非空字段作为等值条件
+     *
+     * @param object 例子对象
+     * @param <T>    表对应的实体类型
+     * @return 条数
+     */
+    default <T> long countByExample(T object) {
+        if (object instanceof Class || object == null) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+        String sql = toAggregateSql(object, AggregateSpec.of().count("count"), DbType.mysql);
+        ShardingRule rule = shardingRule(object.getClass());
+        if (rule != null) {
+            String logicTable = tableNameOf(object.getClass());
+            Integer target = targetShard(object, rule);
+            if (target != null) {
+                return ShardContext.on(target, () -> countOf(rule.rewrite(sql, logicTable, target, DbType.mysql)));
+            }
+            return Shards.scatter(rule.getShardCount(), shardExecutor(), shard -> countOf(rule.rewrite(sql, logicTable, shard, DbType.mysql)))
+                    .stream().mapToLong(Long::longValue).sum();
+        }
+        return countOf(sql);
+    }
+
+    /**
+     * 按例子聚合，例子中的非空字段作为等值条件，聚合在数据库中完成。
+     * 分片表例子中含分片键时只查询所在分片；否则分发到全部分片，仅支持不分组的count、sum、min、max并在内存中归并
+     *
+     * @param object 例子对象
+     * @param spec   聚合项与分组字段
+     * @param <T>    表对应的实体类型
+     * @return 列式结果集，列为分组字段与各聚合项别名
+     */
+    default <T> RowSet aggregateByExample(T object, AggregateSpec spec) {
+        if (object instanceof Class || object == null) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+        String sql = toAggregateSql(object, spec, DbType.mysql);
+        ShardingRule rule = shardingRule(object.getClass());
+        if (rule == null) {
+            return queryBySQL(sql, RowSet::from);
+        }
+        String logicTable = tableNameOf(object.getClass());
+        Integer target = targetShard(object, rule);
+        if (target != null) {
+            return ShardContext.on(target, () -> queryBySQL(rule.rewrite(sql, logicTable, target, DbType.mysql), RowSet::from));
+        }
+        boolean mergeable = spec.getGroupBy().isEmpty()
+                && spec.getItems().stream().noneMatch(item -> item.getFunction() == AggregateSpec.Function.AVG);
+        if (!mergeable) {
+            // 跨分片的avg与分组结果不能直接累加，需要调用方按分片自行归并
+            throw new UnsupportedOperationException("Avg or grouped aggregate across shards is not supported on sharded table " + object.getClass().getName());
+        }
+        return Shards.aggregate(Shards.scatter(rule.getShardCount(), shardExecutor(),
+                shard -> queryBySQL(rule.rewrite(sql, logicTable, shard, DbType.mysql), RowSet::from)), spec);
+    }
+
+    /**
+     * 执行count语句
+     *
+     * @param sql count语句
+     * @return 条数
+     */
+    default long countOf(String sql) {
+        return findBySQL(sql, (Object[]) null).stream()
+                .findFirst()
+                .flatMap(row -> row.values().stream().findFirst())
+                .map(v -> ((Number) v).longValue())
+                .orElse(0L);
+    }
+
+    /**
+     * 实体的分片规则，返回非空时该实体按规则水平分表，
+     * 单条的查询、保存、更新、删除直接路由到分片，按例子查询、分页与计数分发到全部分片后归并
+     *
+     * @param tableClass 实体类型
+     * @return 分片规则，默认不分片
+     */
+    default ShardingRule shardingRule(Class<?> tableClass) {
+        return null;
+    }
+
+    /**
+     * 分片并发查询使用的执行器
+     *
+     * @return 执行器，为空时按分片顺序执行
+     */
+    default Executor shardExecutor() {
+        return null;
+    }
+
+    /**
+     * 取对象的分片键所在分片
+     *
+     * @param o    实体对象
+     * @param rule 分片规则
+     * @param <T>  实体类型
+     * @return 分片下标
+     */
+    default <T> int shardOf(T o, ShardingRule rule) {
+        Integer shard = targetShard(o, rule);
+        if (shard == null) {
+            throw new IllegalArgumentException("Shard key " + rule.getShardKey() + " is required");
+        }
+        return shard;
+    }
+
+    /**
+     * 取例子对象的分片键所在分片
+     *
+     * @param o    实体对象
+     * @param rule 分片规则
+     * @param <T>  实体类型
+     * @return 分片下标，分片键为空时返回null
+     */
+    default <T> Integer targetShard(T o, ShardingRule rule) {
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
+        List<ColumnName> columns = tableWrapper.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).matches(rule.getShardKey())) {
+                Object value = tableWrapper.getValue(i);
+                return value == null ? null : rule.shardOf(value);
+            }
+        }
+        throw new IllegalArgumentException("Unknown shard key " + rule.getShardKey());
+    }
+
+    /**
+     * 分片表根据主键查询单条，分片键为主键时直接路由，否则分发到全部分片
+     *
+     * @param clazz 实体类型
+     * @param id    主键
+     * @param rule  分片规则
+     * @param <T>   实体类型
+     * @return 实体
+     */
+    default <T> T findOneOfShard(Class<T> clazz, Object id, ShardingRule rule) {
+        try {
+            Object typedId = toIdType(clazz, id);
+            String idColumn = toIdColumnName(clazz);
+            String logicTable = tableNameOf(clazz);
+            SQLSelectQueryBlock query = new SQLSelectQueryBlock();
+            query.setFrom(new SQLExprTableSource(logicTable));
+            query.addSelectItem(new SQLSelectItem(new SQLAllColumnExpr()));
+            query.setWhere(new SQLBinaryOpExpr(SQLUtils.toSQLExpr(idColumn), SQLBinaryOperator.Equality, new SQLVariantRefExpr("?")));
+            String sql = SQLUtils.toSQLString(query, DbType.mysql);
+
+            if (isShardedById(clazz, rule)) {
+                int shard = rule.shardOf(typedId);
+                return ShardContext.on(shard, () -> findBySQL(rule.rewrite(sql, logicTable, shard, DbType.mysql), clazz, typedId))
+                        .stream().findFirst().orElse(null);
+            }
+            return Shards.scatter(rule.getShardCount(), shardExecutor(), shard -> findBySQL(rule.rewrite(sql, logicTable, shard, DbType.mysql), clazz, typedId))
+                    .stream().flatMap(List::stream).findFirst().orElse(null);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * 分片键是否为主键
+     *
+     * @param tableClass 实体类型
+     * @param rule       分片规则
+     * @return 是否按主键分片
+     */
+    default boolean isShardedById(Class<?> tableClass, ShardingRule rule) throws NoSuchFieldException {
+        return toIdColumnName(tableClass).equalsIgnoreCase(rule.getShardKey())
+                || getIdField(tableClass).getName().equals(rule.getShardKey());
+    }
+
+    /**
+     * 按分片划分主键，按主键分片时每个主键只落在一个分片，否则每个分片都需查找全部主键
+     *
+     * @param tableClass 实体类型
+     * @param typedIds   已转换为主键类型的主键集合
+     * @param rule       分片规则
+     * @return 分片下标与该分片需查找的主键
+     */
+    default Map<Integer, List<Object>> shardsOfIds(Class<?> tableClass, Collection<Object> typedIds, ShardingRule rule) throws NoSuchFieldException {
+        Map<Integer, List<Object>> groups = new TreeMap<>();
+        if (isShardedById(tableClass, rule)) {
+            for (Object id : typedIds) {
+                groups.computeIfAbsent(rule.shardOf(id), k -> new ArrayList<>()).add(id);
+            }
+        } else {
+            for (int shard = 0; shard < rule.getShardCount(); shard++) {
+                groups.put(shard, new ArrayList<>(typedIds));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * 主键in查询，主键以?占位
+     *
+     * @param table       表名
+     * @param idColumn    主键字段
+     * @param allColumns  是否查询全部字段，否则只查询主键
+     * @param size        主键个数
+     * @return sql
+     */
+    default String toIdInSql(String table, String idColumn, boolean allColumns, int size) {
+        SQLSelectQueryBlock query = new SQLSelectQueryBlock();
+        query.setFrom(new SQLExprTableSource(table));
+        query.addSelectItem(new SQLSelectItem(allColumns ? new SQLAllColumnExpr() : SQLUtils.toSQLExpr(idColumn)));
+        SQLInListExpr in = new SQLInListExpr(SQLUtils.toSQLExpr(idColumn));
+        for (int i = 0; i < size; i++) {
+            in.getTargetList().add(new SQLVariantRefExpr("?"));
+        }
+        query.setWhere(in);
+        return SQLUtils.toSQLString(query, DbType.mysql);
+    }
+
+    /**
+     * 分片表根据主键集合分批查询，结果无序
+     *
+     * @param tableClass 实体类型
+     * @param typedIds   已转换为主键类型且去重的主键集合
+     * @param chunkSize  每批次主键个数
+     * @param rule       分片规则
+     * @param <T>        实体类型
+     * @return 查询结果
+     */
+    default <T> List<T> findAllByIdOfShards(Class<T> tableClass, List<Object> typedIds, int chunkSize, ShardingRule rule) throws NoSuchFieldException {
+        String logicTable = tableNameOf(tableClass);
+        String idColumn = toIdColumnName(tableClass);
+        List<T> fetched = new ArrayList<>(typedIds.size());
+        for (Map.Entry<Integer, List<Object>> group : shardsOfIds(tableClass, typedIds, rule).entrySet()) {
+            int shard = group.getKey();
+            String table = rule.tableName(logicTable, shard);
+            for (List<Object> chunk : Lists.partition(group.getValue(), chunkSize)) {
+                Deadline.check();
+                String sql = toIdInSql(table, idColumn, true, chunk.size());
+                fetched.addAll(ShardContext.on(shard, () -> findBySQL(sql, tableClass, chunk.toArray())));
+            }
+        }
+        return fetched;
+    }
+
+    /**
+     * 分片表根据主键删除，按主键分片时只在主键所在分片执行
+     *
+     * @param tableClass 实体类型
+     * @param typedId    已转换为主键类型的主键
+     * @param rule       分片规则
+     * @return 删除条数
+     */
+    default int deleteByIdOfShards(Class<?> tableClass, Object typedId, ShardingRule rule) throws NoSuchFieldException {
+        String logicTable = tableNameOf(tableClass);
+        String idColumn = toIdColumnName(tableClass);
+        int count = 0;
+        for (Integer shard : shardsOfIds(tableClass, Collections.singletonList(typedId), rule).keySet()) {
+            SQLDeleteStatement delete = new SQLDeleteStatement();
+            delete.setTableSource(new SQLExprTableSource(rule.tableName(logicTable, shard)));
+            delete.setWhere(new SQLBinaryOpExpr(SQLUtils.toSQLExpr(idColumn), SQLBinaryOperator.Equality, new SQLVariantRefExpr("?")));
+            String sql = SQLUtils.toSQLString(delete, DbType.mysql);
+            count += ShardContext.on(shard, () -> updateBySQL(sql, typedId));
+        }
+        return count;
+    }
+
+    /**
+     * 分片表根据主键集合分批删除，按主键分片时每批只在主键所在分片执行
+     *
+     * @param tableClass 实体类型
+     * @param typedIds   已转换为主键类型且去重的主键集合
+     * @param chunkSize  每批次主键个数
+     * @param rule       分片规则
+     * @return 删除条数
+     */
+    default int deleteAllByIdOfShards(Class<?> tableClass, List<Object> typedIds, int chunkSize, ShardingRule rule) throws NoSuchFieldException {
+        String logicTable = tableNameOf(tableClass);
+        String idColumn = toIdColumnName(tableClass);
+        int count = 0;
+        for (Map.Entry<Integer, List<Object>> group : shardsOfIds(tableClass, typedIds, rule).entrySet()) {
+            int shard = group.getKey();
+            String table = rule.tableName(logicTable, shard);
+            for (List<Object> chunk : Lists.partition(group.getValue(), chunkSize)) {
+                Deadline.check();
+                SQLDeleteStatement delete = new SQLDeleteStatement();
+                delete.setTableSource(new SQLExprTableSource(table));
+                SQLInListExpr in = new SQLInListExpr(SQLUtils.toSQLExpr(idColumn));
+                for (int i = 0; i < chunk.size(); i++) {
+                    in.getTargetList().add(new SQLVariantRefExpr("?"));
+                }
+                delete.setWhere(in);
+                String sql = SQLUtils.toSQLString(delete, DbType.mysql);
+                count += ShardContext.on(shard, () -> updateBySQL(sql, chunk.toArray()));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 分片表按对象主键批量删除
+     *
+     * @param list 需要删除的对象集合
+     * @param <T>  实体类型
+     */
+    default <T> void deleteAllOfShards(Iterable<T> list) {
+        Class<?> tableClass = list.iterator().next().getClass();
+        try {
+            Set<Object> ids = new LinkedHashSet<>();
+            for (T o : list) {
+                ids.add(toIdType(tableClass, getId(o)));
+            }
+            evictIdentity(tableClass);
+            deleteAllByIdOfShards(tableClass, new ArrayList<>(ids), inClauseChunkSize(), shardingRule(tableClass));
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+        EntitySnapshots snapshots = snapshots();
+        if (snapshots != null) {
+            for (T o : list) {
+                snapshots.remove(o);
+            }
+        }
+        evictCache(tableClass);
+    }
+
+    /**
+     * 分片实体不支持的操作直接拒绝，避免在逻辑表上执行
+     *
+     * @param tableClass 实体类型
+     * @param operation  操作描述
+     */
+    default void rejectSharded(Class<?> tableClass, String operation) {
+        if (shardingRule(tableClass) != null) {
+            throw new UnsupportedOperationException(operation + " are not supported on sharded entity " + tableClass.getName());
+        }
+    }
+
+    /**
+     * 分片表的按例子查询，例子中包含分片键时直接路由，否则各分片并发查询后按sort多路归并
+     *
+     * @param object 例子对象
+     * @param sort   排序
+     * @param skip   跳过的条数
+     * @param limit  最多返回的条数，小于0时不限制
+     * @param <T>    实体类型
+     * @return 查询结果
+     */
+    @SuppressWarnings("unchecked")
+    default <T> List<T> findAllOfShards(T object, Sort sort, long skip, int limit) {
+        Class<T> tableClass = (Class<T>) object.getClass();
+        String select = toSelectSql(object, sort, DbType.mysql);
+        return findAllOfShards(tableClass, select, targetShard(object, shardingRule(tableClass)), sort, skip, limit);
+    }
+
+    /**
+     * 分片表按逻辑表上的查询sql查询，指定目标分片时直接路由，否则各分片并发查询后按sort多路归并
+     *
+     * @param tableClass 实体类型
+     * @param select     逻辑表上的查询sql，包含排序
+     * @param target     目标分片，为空时分发到全部分片
+     * @param sort       排序，需与select中的排序一致
+     * @param skip       跳过的条数
+     * @param limit      最多返回的条数，小于0时不限制
+     * @param <T>        实体类型
+     * @return 查询结果
+     */
+    default <T> List<T> findAllOfShards(Class<T> tableClass, String select, Integer target, Sort sort, long skip, int limit) {
+        ShardingRule rule = shardingRule(tableClass);
+        String logicTable = tableNameOf(tableClass);
+        if (target != null) {
+            String sql = limit < 0 ? select : PagerUtils.limit(select, DbType.mysql, (int) skip, limit);
+            return ShardContext.on(target, () -> findBySQL(rule.rewrite(sql, logicTable, target, DbType.mysql), tableClass, null));
+        }
+
+        String sql = limit < 0 ? select : PagerUtils.limit(select, DbType.mysql, 0, (int) skip + limit);
+        List<List<T>> shardResults = Shards.scatter(rule.getShardCount(), shardExecutor(),
+                shard -> findBySQL(rule.rewrite(sql, logicTable, shard, DbType.mysql), tableClass, null));
+        return Shards.merge(shardResults, Shards.comparator(sort, toColumnNames(tableClass)), skip, limit);
+    }
+
 
     /**
      * 批量插入
@@ -603,7 +1922,60 @@ public interface BaseDao {
      * @param list 要保存的数据集合
      */
     default <T> void batchInsert(List<T> list) {
-        batchInsert(list, 1000);
+        AdaptiveBatchSizer sizer = batchSizer();
+        if (sizer == null || list.isEmpty()) {
+            batchInsert(list, 1000);
+            return;
+        }
+        TableWrapper<T> sample = new TableWrapper<>(list.get(0), this::toColumnNames, this::tableNameOf);
+        sizer.execute(list.get(0).getClass(), list, sample.getColumns().size(),
+                AdaptiveBatchSizer.estimateRowBytes(sample.getValues()), this::batchInsert);
+    }
+
+    /**
+     * 自适应批次大小，不为空时batchInsert(List)、batchUpdate(List)、batchDelete(List)
+     * 按实测耗时调整每批条数，为空时固定每批1000条
+     *
+     * @return 批次大小调节器
+     */
+    default AdaptiveBatchSizer batchSizer() {
+        return null;
+    }
+
+    /**
+     * 从文件批量导入，解析、转换与分批写入并行执行，单行失败时拒绝该行并继续导入
+     *
+     * @param tableClass 导入的目标表对应实体类型
+     * @param file       文件路径
+     * @param format     文件格式
+     * @param options    导入参数，为空时使用默认值
+     * @param listener   进度与拒绝行回调，可为空
+     * @param <T>        目标表对应实体类型
+     * @return 导入结果
+     * @throws IOException 读文件异常
+     */
+    default <T> ImportResult importFile(Class<T> tableClass, Path file, ImportFormat format, ImportOptions options, ImportListener listener) throws IOException {
+        return new BulkImporter<>(this, tableClass, format, options, listener).load(file);
+    }
+
+    /**
+     * 整表同步，使库中数据与传入集合一致：按主键分块读取已有数据并比较字段值哈希，
+     * 只对新增、变化、缺失的行执行jdbc批量写入，内容一致的行不产生写操作
+     *
+     * @param tableClass 表对应的实体类型
+     * @param incoming   期望的全部数据，主键不能为空
+     * @param options    同步参数，为空时使用默认值
+     * @param <T>        表对应的实体类型
+     * @return 同步结果
+     */
+    default <T> SyncResult syncAll(Class<T> tableClass, Collection<T> incoming, SyncOptions options) throws NoSuchFieldException {
+        if (shardingRule(tableClass) != null) {
+            throw new UnsupportedOperationException("Sync is not supported on sharded table " + tableClass.getName());
+        }
+        SyncResult result = new TableSynchronizer<>(this, tableClass, options).sync(incoming);
+        evictIdentity(tableClass);
+        evictCache(tableClass);
+        return result;
     }
 
     /**
@@ -612,7 +1984,20 @@ public interface BaseDao {
      * @param list 要更新的数据集合
      */
     default <T> void batchUpdate(List<T> list) throws NoSuchFieldException, IllegalAccessException {
-        batchUpdate(list, 1000);
+        AdaptiveBatchSizer sizer = batchSizer();
+        if (sizer == null || list.isEmpty()) {
+            batchUpdate(list, 1000);
+            return;
+        }
+        TableWrapper<T> sample = new TableWrapper<>(list.get(0), this::toColumnNames, this::tableNameOf);
+        try {
+            sizer.<T, ReflectiveOperationException>execute(list.get(0).getClass(), list, sample.getColumns().size(),
+                    AdaptiveBatchSizer.estimateRowBytes(sample.getValues()), this::batchUpdate);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw e;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -621,11 +2006,17 @@ public interface BaseDao {
      * @param list 要删除的数据集合
      */
     default <T> void batchDelete(List<T> list) {
-        batchDelete(list, 1000);
+        AdaptiveBatchSizer sizer = batchSizer();
+        if (sizer == null || list.isEmpty()) {
+            batchDelete(list, 1000);
+            return;
+        }
+        // 按主键删除，每行只绑定一个参数
+        sizer.execute(list.get(0).getClass(), list, 1, 0, this::batchDelete);
     }
 
     /**
-     * 批量插入
+     * 批量插入，默认委托save(Iterable)分配主键并保存；实现类覆盖时需在写入前调用assignIds
      *
      * @param list      要保存的数据集合
      * @param batchSize 多少条执行一次插入
@@ -634,6 +2025,53 @@ public interface BaseDao {
         save(list);
     }
 
+    /**
+     * 实体的客户端主键生成器，返回非空时save(Iterable)、saveAndReturn(Iterable)与batchInsert
+     * 在插入前为主键为空的实体分配主键
+     *
+     * @param tableClass 实体类型
+     * @return 主键生成器，默认由数据库生成主键
+     */
+    default IdGenerator idGenerator(Class<?> tableClass) {
+        return null;
+    }
+
+    /**
+     * 为主键为空的实体分配主键，已有主键的实体保持不变
+     *
+     * @param list 实体集合
+     * @param <T>  实体类型
+     */
+    default <T> void assignIds(Iterable<T> list) {
+        Iterator<T> iterator = list == null ? null : list.iterator();
+        if (iterator == null || !iterator.hasNext()) {
+            return;
+        }
+        Class<?> tableClass = iterator.next().getClass();
+        IdGenerator generator = idGenerator(tableClass);
+        if (generator == null) {
+            return;
+        }
+        try {
+            List<T> missing = new ArrayList<>();
+            for (T entity : list) {
+                if (getId(entity) == null) {
+                    missing.add(entity);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            boolean text = getIdType(tableClass) == String.class;
+            Object[] ids = generator.next(tableClass, missing.size());
+            for (int i = 0; i < ids.length; i++) {
+                setId(missing.get(i), text ? String.valueOf(ids[i]) : ids[i]);
+            }
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     /**
      * 批量更新
      *
@@ -653,6 +2091,11 @@ public interface BaseDao {
      * @param batchSize 多少条执行一次删除
      */
     default <T> void batchDelete(List<T> list, int batchSize) {
+        if (shardingRule(list.iterator().next().getClass()) != null) {
+            deleteAllOfShards(list);
+            return;
+        }
+        evictIdentity(list.iterator().next().getClass());
         PagingAndSortingRepository<Object, Object> re = getRepository((Class<Object>) list.iterator().next().getClass());
         re.deleteAll(list);
     }
@@ -664,19 +2107,49 @@ public interface BaseDao {
      * @return 主键属性
      */
     default Field getIdField(Class<?> clazz) throws NoSuchFieldException {
+        Field cache = ID_FIELD_CACHE.get(clazz);
+        if (cache != null) {
+            return cache;
+        }
+        Field idField = null;
+        EntityMetadata metadata = EntityMetadataRegistry.find(clazz);
+        if (metadata != null && metadata.idProperty() != null) {
+            for (Class<?> c = clazz; c != null && idField == null; c = c.getSuperclass()) {
+                try {
+                    idField = c.getDeclaredField(metadata.idProperty());
+                } catch (NoSuchFieldException ignored) {
+                    // 继续查找父类
+                }
+            }
+            if (idField != null) {
+                idField.setAccessible(true);
+                ID_FIELD_CACHE.put(clazz, idField);
+                return idField;
+            }
+        }
         Set<ClassUtil.Target<Id>> e = ClassUtil.getAllEntityAnnotation(clazz, Id.class);
         Member member = e.iterator().next().getMember();
         if (member instanceof Field) {
-            return (Field) member;
+            idField = (Field) member;
+        } else if (member.getName().startsWith("get")) {
+            idField = ClassUtil.getField(clazz, member.getName().substring(3));
         }
-        String methodName = member.getName();
-        if (methodName.startsWith("get")) {
-            return ClassUtil.getField(clazz, methodName.substring(3));
+        if (idField == null) {
+            throw new NoSuchFieldException("没找到主键字段");
         }
-        throw new NoSuchFieldException("没找到主键字段");
+        idField.setAccessible(true);
+        ID_FIELD_CACHE.put(clazz, idField);
+        return idField;
     }
 
     default Object getId(Object o) throws NoSuchFieldException, IllegalAccessException {
+        EntityMetadata metadata = EntityMetadataRegistry.find(o.getClass());
+        if (metadata != null && metadata.idProperty() != null) {
+            int index = metadata.indexOf(metadata.idProperty());
+            if (metadata.isReadable(index)) {
+                return metadata.get(o, index);
+            }
+        }
         return getIdField(o.getClass()).get(o);
     }
 
@@ -686,6 +2159,23 @@ public interface BaseDao {
         idField.set(o, ObjectUtil.to(id, new TypeReference<>(idField.getType())));
     }
 
+    /**
+     * 取ORM中的主键字段对应的数据库字段名
+     *
+     * @param clazz 查询的目标表对应实体类型，Entity
+     * @return 主键字段名
+     */
+    default String toIdColumnName(Class<?> clazz) throws NoSuchFieldException {
+        Optional<String> column = toColumnNames(clazz).stream()
+                .filter(ColumnName::isPrimaryKey)
+                .map(ColumnName::getName)
+                .findFirst();
+        if (column.isPresent()) {
+            return column.get();
+        }
+        return getIdField(clazz).getName();
+    }
+
     /**
      * 根据ORM类型取主键类型
      *
@@ -707,6 +2197,29 @@ public interface BaseDao {
         return ObjectUtil.to(id, new TypeReference<>(getIdType(clazz)));
     }
 
+    /**
+     * 生成全表查询sql
+     *
+     * @param tableClass 实体类型
+     * @param sort       排序
+     * @param dbType     数据库类型
+     * @param <T>        泛型
+     * @return sql
+     */
+    default <T> String toSelectAllSql(Class<T> tableClass, Sort sort, DbType dbType) {
+        SQLSelectQueryBlock query = new SQLSelectQueryBlock();
+        query.setFrom(new SQLExprTableSource(tableNameOf(tableClass)));
+        EntityMetadata metadata = EntityMetadataRegistry.find(tableClass);
+        toColumnNames(tableClass).stream()
+                .filter(c -> !TableWrapper.isTransient(c, metadata))
+                .map(ColumnName::getName)
+                .forEach(e -> query.addSelectItem(new SQLSelectItem(SQLUtils.toSQLExpr(e))));
+        sort.stream().forEach(o -> {
+            query.addOrderBy(new SQLOrderBy(SQLUtils.toSQLExpr(o.getProperty()), o.getDirection().isAscending() ? SQLOrderingSpecification.ASC : SQLOrderingSpecification.DESC));
+        });
+        return SQLUtils.toSQLString(query, dbType);
+    }
+
     /**
      * 对象转换为sql
      *
@@ -716,17 +2229,41 @@ public interface BaseDao {
      * @return sql
      */
     default <T> String toSelectSql(T o, Sort sort, DbType dbType) {
+        return toSelectSql(o, sort, dbType, new String[0]);
+    }
+
+    /**
+     * 对象转换为只查询指定字段的sql
+     *
+     * @param o       对象
+     * @param sort    排序
+     * @param dbType  数据库类型
+     * @param columns 需要查询的字段名或属性名，为空时查询全部字段
+     * @param <T>     泛型
+     * @return sql
+     */
+    default <T> String toSelectSql(T o, Sort sort, DbType dbType, String... columns) {
         if (o instanceof Class || o == null) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
 
-        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::toTableName);
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
 
         SQLSelectQueryBlock query = new SQLSelectQueryBlock();
         query.setFrom(new SQLExprTableSource(tableWrapper.getTableName()));
-        tableWrapper.getColumns().stream().map(ColumnName::getName).forEach(e -> query.addSelectItem(new SQLSelectItem(SQLUtils.toSQLExpr(e))));
-        tableWrapper.getColumns().stream().filter(e -> e.getValue().isPresent())
-                .map(e -> e.sql(dbType))
+        if (columns == null || columns.length == 0) {
+            tableWrapper.getColumns().stream().map(ColumnName::getName).forEach(e -> query.addSelectItem(new SQLSelectItem(SQLUtils.toSQLExpr(e))));
+        } else {
+            for (String column : columns) {
+                String name = tableWrapper.getColumns().stream().filter(c -> c.matches(column))
+                        .findFirst()
+                        .map(ColumnName::getName)
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown column " + column));
+                query.addSelectItem(new SQLSelectItem(SQLUtils.toSQLExpr(name)));
+            }
+        }
+        IntStream.range(0, tableWrapper.getColumns().size()).filter(tableWrapper::hasValue)
+                .mapToObj(i -> tableWrapper.sql(i, dbType))
                 .reduce((a, b) -> new SQLBinaryOpExpr(a, SQLBinaryOperator.BooleanAnd, b)).ifPresent(query::setWhere);
 
         sort.stream().forEach(s -> {
@@ -736,40 +2273,144 @@ public interface BaseDao {
         return SQLUtils.toSQLString(query, dbType);
     }
 
+    /**
+     * 按例子生成聚合sql
+     *
+     * @param o      例子对象
+     * @param spec   聚合项与分组字段
+     * @param dbType 数据库类型
+     * @param <T>    泛型
+     * @return sql
+     */
+    default <T> String toAggregateSql(T o, AggregateSpec spec, DbType dbType) {
+        if (o instanceof Class || o == null) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+        if (spec.getItems().isEmpty()) {
+            throw new IllegalArgumentException("Aggregate spec contains at least one aggregate item");
+        }
+
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
+        List<ColumnName> columns = tableWrapper.getColumns();
+        Function<String, String> toColumn = column -> columns.stream().filter(c -> c.matches(column))
+                .findFirst()
+                .map(ColumnName::getName)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown column " + column));
+
+        SQLSelectQueryBlock query = new SQLSelectQueryBlock();
+        query.setFrom(new SQLExprTableSource(tableWrapper.getTableName()));
+        if (!spec.getGroupBy().isEmpty()) {
+            SQLSelectGroupByClause groupBy = new SQLSelectGroupByClause();
+            for (String column : spec.getGroupBy()) {
+                String name = toColumn.apply(column);
+                query.addSelectItem(new SQLSelectItem(SQLUtils.toSQLExpr(name)));
+                groupBy.addItem(SQLUtils.toSQLExpr(name));
+            }
+            query.setGroupBy(groupBy);
+        }
+        for (AggregateSpec.Item item : spec.getItems()) {
+            SQLAggregateExpr aggregate = new SQLAggregateExpr(item.getFunction().name());
+            aggregate.addArgument(item.getColumn() == null ? new SQLAllColumnExpr() : SQLUtils.toSQLExpr(toColumn.apply(item.getColumn())));
+            query.addSelectItem(new SQLSelectItem(aggregate, item.getAlias()));
+        }
+
+        //where
+        IntStream.range(0, columns.size()).filter(tableWrapper::hasValue)
+                .mapToObj(i -> tableWrapper.sql(i, dbType))
+                .reduce((a, b) -> new SQLBinaryOpExpr(a, SQLBinaryOperator.BooleanAnd, b)).ifPresent(query::setWhere);
+
+        return SQLUtils.toSQLString(query, dbType);
+    }
+
     default <T> String toUpdateSql(T o, DbType dbType) {
         if (o instanceof Class || o == null) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
 
-        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::toTableName);
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
 
         SQLUpdateStatement update = new SQLUpdateStatement();
         //from
         update.setTableSource(new SQLExprTableSource(tableWrapper.getTableName()));
 
+        List<ColumnName> columns = tableWrapper.getColumns();
         //where
-        tableWrapper.getColumns().stream().filter(ColumnName::isPrimaryKey)
-                .filter(e -> e.getValue().isPresent())
-                .map(e -> e.sql(dbType))
+        IntStream.range(0, columns.size()).filter(i -> columns.get(i).isPrimaryKey())
+                .filter(tableWrapper::hasValue)
+                .mapToObj(i -> tableWrapper.sql(i, dbType))
                 .reduce((a, b) -> new SQLBinaryOpExpr(a, SQLBinaryOperator.BooleanAnd, b)).ifPresent(update::setWhere);
 
         //item
-        tableWrapper.getColumns().stream().filter(e -> !e.isPrimaryKey()).filter(e -> e.getValue().isPresent())
-                .forEach(f -> {
-                    SQLUpdateSetItem updateSetItem = new SQLUpdateSetItem();
-                    updateSetItem.setColumn(SQLUtils.toSQLExpr(f.getName(), dbType));
-                    updateSetItem.setValue(f.sqlValue());
-                    update.addItem(updateSetItem);
-                });
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).isPrimaryKey() || !tableWrapper.hasValue(i)) {
+                continue;
+            }
+            SQLUpdateSetItem updateSetItem = new SQLUpdateSetItem();
+            updateSetItem.setColumn(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType));
+            updateSetItem.setValue(tableWrapper.sqlValue(i));
+            update.addItem(updateSetItem);
+        }
         return SQLUtils.toSQLString(update, dbType);
     }
 
+    /**
+     * 对比快照生成只包含变化字段的更新sql，字段值与主键值以?占位，按字段顺序绑定
+     *
+     * @param tableWrapper 对象包装
+     * @param original     快照中的原始字段值，顺序与tableWrapper的字段一致
+     * @param dbType       数据库类型
+     * @param <T>          泛型
+     * @return sql与参数，没有字段变化时返回null
+     */
+    default <T> NamedSql toUpdateSql(TableWrapper<T> tableWrapper, Object[] original, DbType dbType) {
+        List<ColumnName> columns = tableWrapper.getColumns();
+        Object[] values = tableWrapper.getValues();
+        List<Object> parameters = new ArrayList<>();
+
+        SQLUpdateStatement update = new SQLUpdateStatement();
+        //from
+        update.setTableSource(new SQLExprTableSource(tableWrapper.getTableName()));
+
+        //item
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnName column = columns.get(i);
+            if (column.isPrimaryKey() || Objects.equals(values[i], original[i])) {
+                continue;
+            }
+            SQLUpdateSetItem updateSetItem = new SQLUpdateSetItem();
+            updateSetItem.setColumn(SQLUtils.toSQLExpr(column.getName(), dbType));
+            if (values[i] == null) {
+                updateSetItem.setValue(new SQLNullExpr());
+            } else {
+                updateSetItem.setValue(new SQLVariantRefExpr("?"));
+                parameters.add(values[i]);
+            }
+            update.addItem(updateSetItem);
+        }
+        if (update.getItems().isEmpty()) {
+            return null;
+        }
+
+        //where
+        IntStream.range(0, columns.size()).filter(i -> columns.get(i).isPrimaryKey())
+                .filter(tableWrapper::hasValue)
+                .mapToObj(i -> {
+                    parameters.add(values[i]);
+                    return new SQLBinaryOpExpr(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType), SQLBinaryOperator.Equality, new SQLVariantRefExpr("?"));
+                })
+                .reduce((a, b) -> new SQLBinaryOpExpr(a, SQLBinaryOperator.BooleanAnd, b)).ifPresent(update::setWhere);
+        if (update.getWhere() == null) {
+            throw new IllegalArgumentException("Primary key value is required for partial update");
+        }
+        return NamedSql.of(SQLUtils.toSQLString(update, dbType), parameters.toArray());
+    }
+
     default <T> String toInsertSql(T o, DbType dbType) {
         if (o instanceof Class || o == null) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
 
-        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::toTableName);
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
 
         SQLInsertStatement insert = new SQLInsertStatement();
         //from
@@ -777,22 +2418,109 @@ public interface BaseDao {
 
         SQLInsertStatement.ValuesClause values = new SQLInsertStatement.ValuesClause();
         //item
-        tableWrapper.getColumns().stream().filter(e -> e.getValue().isPresent())
-                .forEach(f -> {
-                    insert.addColumn(SQLUtils.toSQLExpr(f.getName(), dbType));
-                    values.addValue(f.sqlValue());
-                });
+        List<ColumnName> columns = tableWrapper.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (tableWrapper.hasValue(i)) {
+                insert.addColumn(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType));
+                values.addValue(tableWrapper.sqlValue(i));
+            }
+        }
         insert.addValueCause(values);
 
         return SQLUtils.toSQLString(insert, dbType);
     }
 
+    /**
+     * 生成单行插入sql，非空字段值以?占位，按字段顺序绑定
+     *
+     * @param o      表对应的实体类型的对象
+     * @param dbType 数据库类型
+     * @param <T>    泛型
+     * @return sql与参数
+     */
+    default <T> NamedSql toParameterizedInsertSql(T o, DbType dbType) {
+        if (o instanceof Class || o == null) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
+        List<Object> parameters = new ArrayList<>();
+
+        SQLInsertStatement insert = new SQLInsertStatement();
+        //from
+        insert.setTableSource(new SQLExprTableSource(tableWrapper.getTableName()));
+
+        SQLInsertStatement.ValuesClause values = new SQLInsertStatement.ValuesClause();
+        //item
+        List<ColumnName> columns = tableWrapper.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (tableWrapper.hasValue(i)) {
+                insert.addColumn(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType));
+                values.addValue(new SQLVariantRefExpr("?"));
+                parameters.add(tableWrapper.getValue(i));
+            }
+        }
+        insert.addValueCause(values);
+
+        return NamedSql.of(SQLUtils.toSQLString(insert, dbType), parameters.toArray());
+    }
+
+    /**
+     * 生成按主键更新非空字段的sql，字段值与主键值以?占位，按字段顺序绑定
+     *
+     * @param o      表对应的实体类型的对象
+     * @param dbType 数据库类型
+     * @param <T>    泛型
+     * @return sql与参数，没有可更新字段时返回null
+     */
+    default <T> NamedSql toParameterizedUpdateSql(T o, DbType dbType) {
+        if (o instanceof Class || o == null) {
+            throw new IllegalArgumentException("Parameter must be of type POJO");
+        }
+
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
+        List<ColumnName> columns = tableWrapper.getColumns();
+        List<Object> parameters = new ArrayList<>();
+
+        SQLUpdateStatement update = new SQLUpdateStatement();
+        //from
+        update.setTableSource(new SQLExprTableSource(tableWrapper.getTableName()));
+
+        //item
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).isPrimaryKey() || !tableWrapper.hasValue(i)) {
+                continue;
+            }
+            SQLUpdateSetItem updateSetItem = new SQLUpdateSetItem();
+            updateSetItem.setColumn(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType));
+            updateSetItem.setValue(new SQLVariantRefExpr("?"));
+            update.addItem(updateSetItem);
+            parameters.add(tableWrapper.getValue(i));
+        }
+        if (update.getItems().isEmpty()) {
+            return null;
+        }
+
+        //where
+        IntStream.range(0, columns.size()).filter(i -> columns.get(i).isPrimaryKey())
+                .filter(tableWrapper::hasValue)
+                .mapToObj(i -> {
+                    parameters.add(tableWrapper.getValue(i));
+                    return new SQLBinaryOpExpr(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType), SQLBinaryOperator.Equality, new SQLVariantRefExpr("?"));
+                })
+                .reduce((a, b) -> new SQLBinaryOpExpr(a, SQLBinaryOperator.BooleanAnd, b)).ifPresent(update::setWhere);
+        if (update.getWhere() == null) {
+            throw new IllegalArgumentException("Primary key value is required for update");
+        }
+        return NamedSql.of(SQLUtils.toSQLString(update, dbType), parameters.toArray());
+    }
+
     default <T> String toInsertSql(List<T> list, DbType dbType) {
         if (list == null || list.isEmpty()) {
             throw new IllegalArgumentException("Parameter contains at least one element");
         }
 
-        List<TableWrapper<T>> rows = list.stream().map(c -> new TableWrapper<>(c, this::toColumnNames, this::toTableName)).collect(Collectors.toList());
+        List<TableWrapper<T>> rows = list.stream().map(c -> new TableWrapper<>(c, this::toColumnNames, this::tableNameOf)).collect(Collectors.toList());
 
         SQLInsertStatement insert = new SQLInsertStatement();
 
@@ -803,11 +2531,13 @@ public interface BaseDao {
 
                 SQLInsertStatement.ValuesClause values = new SQLInsertStatement.ValuesClause();
                 //item
-                row.getColumns().stream().filter(e -> e.getValue().isPresent())
-                        .forEach(f -> {
-                            insert.addColumn(SQLUtils.toSQLExpr(f.getName(), dbType));
-                            values.addValue(f.sqlValue());
-                        });
+                List<ColumnName> columns = row.getColumns();
+                for (int i = 0; i < columns.size(); i++) {
+                    if (row.hasValue(i)) {
+                        insert.addColumn(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType));
+                        values.addValue(row.sqlValue(i));
+                    }
+                }
 
                 insert.addValueCause(values);
             }
@@ -816,21 +2546,67 @@ public interface BaseDao {
         return SQLUtils.toSQLString(insert, dbType);
     }
 
+    /**
+     * 按例子生成批量更新sql，更新内容与条件的值均以?占位，参数依次为更新字段值与条件字段值，各自按字段顺序排列
+     *
+     * @param criteria 条件例子
+     * @param patch    更新内容
+     * @param dbType   数据库类型
+     * @param <T>      泛型
+     * @return sql与参数，patch没有可更新字段时返回null
+     */
+    default <T> NamedSql toUpdateByExampleSql(T criteria, T patch, DbType dbType) {
+        TableWrapper<T> where = new TableWrapper<>(criteria, this::toColumnNames, this::tableNameOf);
+        TableWrapper<T> set = new TableWrapper<>(patch, this::toColumnNames, this::tableNameOf);
+        List<Object> parameters = new ArrayList<>();
+
+        SQLUpdateStatement update = new SQLUpdateStatement();
+        //from
+        update.setTableSource(new SQLExprTableSource(where.getTableName()));
+
+        //item
+        List<ColumnName> columns = set.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).isPrimaryKey() || !set.hasValue(i)) {
+                continue;
+            }
+            SQLUpdateSetItem updateSetItem = new SQLUpdateSetItem();
+            updateSetItem.setColumn(SQLUtils.toSQLExpr(columns.get(i).getName(), dbType));
+            updateSetItem.setValue(new SQLVariantRefExpr("?"));
+            update.addItem(updateSetItem);
+            parameters.add(set.getValue(i));
+        }
+        if (update.getItems().isEmpty()) {
+            return null;
+        }
+
+        //where
+        IntStream.range(0, where.getColumns().size()).filter(where::hasValue)
+                .mapToObj(i -> {
+                    parameters.add(where.getValue(i));
+                    return new SQLBinaryOpExpr(SQLUtils.toSQLExpr(where.getColumns().get(i).getName(), dbType), SQLBinaryOperator.Equality, new SQLVariantRefExpr("?"));
+                })
+                .reduce((a, b) -> new SQLBinaryOpExpr(a, SQLBinaryOperator.BooleanAnd, b)).ifPresent(update::setWhere);
+        if (update.getWhere() == null) {
+            throw new IllegalArgumentException("Criteria must contain at least one non-null column, refusing to update the whole table");
+        }
+        return NamedSql.of(SQLUtils.toSQLString(update, dbType), parameters.toArray());
+    }
+
     default <T> String toDeleteSql(T o, DbType dbType) {
         if (o instanceof Class || o == null) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
         }
 
-        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::toTableName);
+        TableWrapper<T> tableWrapper = new TableWrapper<>(o, this::toColumnNames, this::tableNameOf);
 
         SQLDeleteStatement delete = new SQLDeleteStatement();
         //from
         delete.setTableSource(new SQLExprTableSource(tableWrapper.getTableName()));
 
         //where
-        tableWrapper.getColumns().stream()
-                .filter(e -> e.getValue().isPresent())
-                .map(e -> e.sql(dbType))
+        IntStream.range(0, tableWrapper.getColumns().size()).filter(tableWrapper::hasValue)
+                .mapToObj(i -> tableWrapper.sql(i, dbType))
                 .reduce((a, b) -> new SQLBinaryOpExpr(a, SQLBinaryOperator.BooleanAnd, b)).ifPresent(delete::setWhere);
 
         return SQLUtils.toSQLString(delete, dbType);
@@ -840,6 +2616,21 @@ public interface BaseDao {
 
     <T> String toTableName(Class<T> clazz);
 
+    /**
+     * 取实体表名，优先使用编译期生成元数据中@Table声明的表名，未生成或未声明时退化为toTableName
+     *
+     * @param clazz 实体类型
+     * @param <T>   实体类型
+     * @return 表名
+     */
+    default <T> String tableNameOf(Class<T> clazz) {
+        EntityMetadata metadata = EntityMetadataRegistry.find(clazz);
+        if (metadata != null && metadata.tableName() != null) {
+            return metadata.tableName();
+        }
+        return toTableName(clazz);
+    }
+
     default <T> String toPageSQL(T o, PageRequest pageRequest, DbType dbType) {
         if (o instanceof Class) {
             throw new IllegalArgumentException("Parameter must be of type POJO");
@@ -0,0 +1,43 @@
+package cloud.agileframework.data.common.dao;
+
+import java.util.List;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/29 9:52
+ * 描述 增量读取的一批数据及读取下一批时使用的水位
+ * @version 1.0
+ * @since 1.0
+ */
+public class ChangeBatch<T> {
+    private final List<T> content;
+    private final Watermark next;
+    private final boolean hasMore;
+
+    public ChangeBatch(List<T> content, Watermark next, boolean hasMore) {
+        this.content = content;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return 按水位字段、主键升序排列的数据
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * @return 下一批的起始水位，本批为空时与传入水位相同，可持久化作为检查点
+     */
+    public Watermark getNext() {
+        return next;
+    }
+
+    /**
+     * @return 本批是否已满，满批时可能还有后续数据
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
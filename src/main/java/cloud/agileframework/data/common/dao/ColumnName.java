@@ -17,12 +17,19 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.TimeZone;
 
+/**
+ * 字段元数据，只描述字段本身，不携带行数据，可在线程间共享与缓存；行数据由TableWrapper按字段顺序保存
+ */
 public class ColumnName {
     //字段名
     private String name;
     //标注字段注解的属性或者方法，如@Column或@Field
     private Member member;
-    private Optional<Object> value;
+    /**
+     * @deprecated 行数据已移至TableWrapper，仅为兼容保留
+     */
+    @Deprecated
+    private Optional<Object> value = Optional.empty();
     private boolean primaryKey;
 
     public String getName() {
@@ -46,21 +53,63 @@ public class ColumnName {
             name = member.getName();
         }
         if (member instanceof Method && member.getName().startsWith("get")) {
-            name = StringUtil.toLowerName(name.substring(3));
+            name = StringUtil.toLowerName(member.getName().substring(3));
         }
-        if (member instanceof Method && member.getName().startsWith("is") && ((Method) member).getReturnType() == Boolean.class) {
-            name = StringUtil.toLowerName(name.substring(2));
+        Class<?> returnType = member instanceof Method ? ((Method) member).getReturnType() : null;
+        if (member.getName().startsWith("is") && (returnType == Boolean.class || returnType == boolean.class)) {
+            name = StringUtil.toLowerName(member.getName().substring(2));
         }
     }
 
+    /**
+     * @deprecated TableWrapper不再回写字段值，共享的字段元数据上的值在并发下互相覆盖，
+     * 请使用{@link TableWrapper#getValue(int)}
+     */
+    @Deprecated
     public Optional<Object> getValue() {
         return value;
     }
 
+    /**
+     * @deprecated 请使用{@link TableWrapper#getValue(int)}
+     */
+    @Deprecated
     public void setValue(Optional<Object> value) {
         this.value = value;
     }
 
+    /**
+     * 取字段对应的java属性名
+     *
+     * @return 属性名
+     */
+    public String getPropertyName() {
+        if (member instanceof Method) {
+            String methodName = member.getName();
+            if (methodName.startsWith("get")) {
+                return StringUtil.toLowerName(methodName.substring(3));
+            }
+            if (methodName.startsWith("is")) {
+                return StringUtil.toLowerName(methodName.substring(2));
+            }
+            return methodName;
+        }
+        return member == null ? name : member.getName();
+    }
+
+    /**
+     * 判断字段名或属性名是否与给定名称一致
+     *
+     * @param nameOrProperty 字段名或属性名
+     * @return 是否匹配
+     */
+    public boolean matches(String nameOrProperty) {
+        if (nameOrProperty == null) {
+            return false;
+        }
+        return nameOrProperty.equalsIgnoreCase(name) || nameOrProperty.equals(getPropertyName());
+    }
+
     public boolean isPrimaryKey() {
         return primaryKey;
     }
@@ -69,17 +118,43 @@ public class ColumnName {
         this.primaryKey = primaryKey;
     }
 
+    /**
+     * @deprecated 请使用{@link #sql(Object, DbType)}
+     */
+    @Deprecated
     public SQLBinaryOpExpr sql(DbType dbType) {
-        Object v = getValue().orElse(null);
+        return sql(getValue().orElse(null), dbType);
+    }
+
+    /**
+     * 生成字段等值条件，值为空时生成is null
+     *
+     * @param v      字段值
+     * @param dbType 数据库类型
+     * @return 条件表达式
+     */
+    public SQLBinaryOpExpr sql(Object v, DbType dbType) {
         if (v == null) {
             return new SQLBinaryOpExpr(SQLUtils.toSQLExpr(getName(), dbType), SQLBinaryOperator.Is, SQLUtils.toSQLExpr(null, dbType));
         }
-        SQLExpr right = sqlValue();
-        return new SQLBinaryOpExpr(SQLUtils.toSQLExpr(getName()), SQLBinaryOperator.Equality, right);
+        return new SQLBinaryOpExpr(SQLUtils.toSQLExpr(getName()), SQLBinaryOperator.Equality, toSQLValue(v));
     }
 
+    /**
+     * @deprecated 请使用{@link #toSQLValue(Object)}
+     */
+    @Deprecated
     public SQLExpr sqlValue() {
-        Object v = getValue().orElse(null);
+        return toSQLValue(getValue().orElse(null));
+    }
+
+    /**
+     * 将java值转换为sql值表达式
+     *
+     * @param v java值
+     * @return sql表达式，值为空时返回null
+     */
+    public static SQLExpr toSQLValue(Object v) {
         if (v == null) {
             return null;
         }
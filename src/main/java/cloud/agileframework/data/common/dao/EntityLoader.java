@@ -0,0 +1,246 @@
+package cloud.agileframework.data.common.dao;
+
+import cloud.agileframework.data.common.timeout.Deadline;
+import cloud.agileframework.data.common.timeout.DeadlineExceededException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/15 15:20
+ * 描述 主键查询合并器，用于findOne(Class, id)。
+ * 同一(实体类型, 主键)的并发查询共享同一次数据库访问；时间窗口内或达到批次上限前的不同主键
+ * 合并为一次findAllById，再按主键分发给各调用方。
+ * 合并查询在其他线程执行，看不到调用方事务中未提交的数据，因此处于事务中的调用不参与合并。
+ * 共享查询的调用方拿到的是同一个实体对象。
+ * 合并查询沿用批次内剩余时间最长的调用方截止时间，任一调用方没有截止时间时不限时；
+ * 每个调用方按各自的截止时间等待结果
+ * @version 1.0
+ * @since 1.0
+ */
+public class EntityLoader {
+    private static final boolean TRANSACTION_PRESENT = ClassUtils.isPresent(
+            "org.springframework.transaction.support.TransactionSynchronizationManager", EntityLoader.class.getClassLoader());
+
+    private final BaseDao dao;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Batch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * @param dao          执行合并查询的dao
+     * @param windowMillis 合并时间窗口，毫秒
+     * @param maxBatchSize 单次合并的最大主键个数，达到后立即查询
+     * @param executor     执行合并查询的线程池
+     */
+    public EntityLoader(BaseDao dao, long windowMillis, int maxBatchSize, Executor executor) {
+        this.dao = dao;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = executor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "agile-entity-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public EntityLoader(BaseDao dao, long windowMillis, int maxBatchSize) {
+        this(dao, windowMillis, maxBatchSize, Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "agile-entity-loader-fetch");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * 当前调用是否可以参与合并
+     *
+     * @return 不在事务中时可以合并
+     */
+    public boolean isApplicable() {
+        return !TRANSACTION_PRESENT || !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 按主键查询
+     *
+     * @param tableClass 实体类型
+     * @param id         主键
+     * @param <T>        实体类型
+     * @return 实体，不存在时为null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(Class<T> tableClass, Object id) throws NoSuchFieldException {
+        Key key = new Key(tableClass, dao.toIdType(tableClass, id));
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> future = inFlight.putIfAbsent(key, created);
+        if (future == null) {
+            future = created;
+            enqueue(key, created);
+        }
+        Deadline deadline = Deadline.current();
+        try {
+            if (deadline == null) {
+                return (T) future.join();
+            }
+            Deadline.check();
+            return (T) future.get(deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(deadline.isCancelled(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException(true, e);
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 关闭定时器，未执行的合并查询立即执行
+     */
+    public void shutdown() {
+        timer.shutdown();
+        batches.keySet().forEach(tableClass -> dispatch(tableClass, null));
+    }
+
+    private void enqueue(Key key, CompletableFuture<Object> future) {
+        while (true) {
+            Batch batch = batches.computeIfAbsent(key.tableClass, k -> new Batch());
+            boolean full;
+            synchronized (batch) {
+                if (batch.closed) {
+                    // 批次已被取走，重新取新批次
+                    continue;
+                }
+                batch.ids.add(key.id);
+                batch.futures.add(future);
+                batch.join(Deadline.current());
+                full = batch.ids.size() >= maxBatchSize;
+                if (!full && batch.timeout == null) {
+                    batch.timeout = timer.schedule(() -> dispatch(key.tableClass, batch), windowMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            if (full) {
+                dispatch(key.tableClass, batch);
+            }
+            return;
+        }
+    }
+
+    /**
+     * 取出批次并交给线程池执行
+     *
+     * @param tableClass 实体类型
+     * @param expected   期望取出的批次，为空时取当前批次
+     */
+    private void dispatch(Class<?> tableClass, Batch expected) {
+        Batch batch = batches.get(tableClass);
+        if (batch == null || (expected != null && batch != expected)) {
+            return;
+        }
+        synchronized (batch) {
+            if (batch.closed) {
+                return;
+            }
+            batch.closed = true;
+            batches.remove(tableClass, batch);
+            if (batch.timeout != null) {
+                batch.timeout.cancel(false);
+            }
+        }
+        Deadline deadline = batch.deadline();
+        executor.execute(() -> Deadline.bind(deadline, () -> {
+            fetch(tableClass, batch.ids, batch.futures);
+            return null;
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fetch(Class<?> tableClass, List<Object> ids, List<CompletableFuture<Object>> futures) {
+        try {
+            List<Object> entities = dao.findAllById((Class<Object>) tableClass, ids, IdFetchOptions.of(0, null, IdFetchOptions.Missing.NULL));
+            for (int i = 0; i < ids.size(); i++) {
+                inFlight.remove(new Key(tableClass, ids.get(i)));
+                futures.get(i).complete(entities.get(i));
+            }
+        } catch (Throwable e) {
+            for (int i = 0; i < ids.size(); i++) {
+                inFlight.remove(new Key(tableClass, ids.get(i)));
+                futures.get(i).completeExceptionally(e);
+            }
+        }
+    }
+
+    private static class Batch {
+        private final List<Object> ids = new ArrayList<>();
+        private final List<CompletableFuture<Object>> futures = new ArrayList<>();
+        private ScheduledFuture<?> timeout;
+        private boolean closed;
+        private Deadline deadline;
+        private boolean unbounded;
+
+        /**
+         * 记录调用方的截止时间，保留剩余时间最长的一个
+         */
+        void join(Deadline callerDeadline) {
+            if (callerDeadline == null) {
+                unbounded = true;
+            } else if (deadline == null || callerDeadline.remainingMillis() > deadline.remainingMillis()) {
+                deadline = callerDeadline;
+            }
+        }
+
+        Deadline deadline() {
+            return unbounded ? null : deadline;
+        }
+    }
+
+    private static class Key {
+        private final Class<?> tableClass;
+        private final Object id;
+
+        Key(Class<?> tableClass, Object id) {
+            this.tableClass = tableClass;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return tableClass == key.tableClass && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tableClass.hashCode() + id.hashCode();
+        }
+    }
+}
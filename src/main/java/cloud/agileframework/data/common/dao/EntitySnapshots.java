@@ -0,0 +1,63 @@
+package cloud.agileframework.data.common.dao;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.Map;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/18 14:05
+ * 描述 实体快照，记录查询出的实体原始字段值，用于更新时只写入变化的字段。
+ * 快照以实体对象本身（按引用）为键弱引用持有，实体被回收后快照随之释放；
+ * 值为按toColumnNames顺序排列的字段值数组
+ * @version 1.0
+ * @since 1.0
+ */
+public class EntitySnapshots {
+    private final Map<Object, Object[]> snapshots = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * 记录实体快照
+     *
+     * @param entity 实体
+     * @param values 按字段顺序排列的字段值
+     */
+    public void track(Object entity, Object[] values) {
+        if (entity == null || values == null) {
+            return;
+        }
+        snapshots.put(entity, values);
+    }
+
+    /**
+     * 取实体快照
+     *
+     * @param entity 实体
+     * @return 字段值数组，未跟踪时返回null
+     */
+    public Object[] get(Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        return snapshots.get(entity);
+    }
+
+    /**
+     * 移除实体快照
+     *
+     * @param entity 实体
+     */
+    public void remove(Object entity) {
+        if (entity == null) {
+            return;
+        }
+        snapshots.remove(entity);
+    }
+
+    /**
+     * 清空全部快照
+     */
+    public void clear() {
+        snapshots.clear();
+    }
+}
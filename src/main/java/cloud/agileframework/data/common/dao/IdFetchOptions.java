@@ -0,0 +1,92 @@
+package cloud.agileframework.data.common.dao;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/20 11:32
+ * 描述 根据主键集合批量查询时的分批、并发与缺失数据处理策略
+ * @version 1.0
+ * @since 1.0
+ */
+public class IdFetchOptions {
+    private static final boolean TRANSACTION_PRESENT = ClassUtils.isPresent(
+            "org.springframework.transaction.support.TransactionSynchronizationManager", IdFetchOptions.class.getClassLoader());
+
+    /**
+     * 每批次主键个数，小于等于0时取BaseDao#inClauseChunkSize
+     */
+    private int chunkSize;
+    /**
+     * 分批查询的执行器，为空时按批次顺序执行；
+     * 处于事务中时忽略，各批次在调用线程中顺序执行，以便读到事务内未提交的数据
+     */
+    private Executor executor;
+    /**
+     * 主键对应数据不存在时的处理方式
+     */
+    private Missing missing = Missing.SKIP;
+
+    public static IdFetchOptions of(int chunkSize) {
+        IdFetchOptions options = new IdFetchOptions();
+        options.setChunkSize(chunkSize);
+        return options;
+    }
+
+    public static IdFetchOptions of(int chunkSize, Executor executor, Missing missing) {
+        IdFetchOptions options = of(chunkSize);
+        options.setExecutor(executor);
+        options.setMissing(missing);
+        return options;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 是否并发执行各批次，并发查询在执行器线程中进行，不在调用方的事务与持久化上下文内
+     *
+     * @return 设置了执行器且当前不在事务中时为true
+     */
+    public boolean isConcurrent() {
+        if (executor == null) {
+            return false;
+        }
+        return !TRANSACTION_PRESENT || !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    public Missing getMissing() {
+        return missing;
+    }
+
+    public void setMissing(Missing missing) {
+        this.missing = missing;
+    }
+
+    public enum Missing {
+        /**
+         * 跳过不存在的主键
+         */
+        SKIP,
+        /**
+         * 不存在的主键在结果对应位置填充null
+         */
+        NULL
+    }
+}
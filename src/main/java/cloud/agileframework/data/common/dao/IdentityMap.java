@@ -0,0 +1,157 @@
+package cloud.agileframework.data.common.dao;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/22 10:05
+ * 描述 事务级标识映射，同一事务内按(实体类型, 主键)缓存已加载的实体与已确认不存在的主键，
+ * 重复的findOne、contains、existsById直接由缓存应答。
+ * 缓存作为事务资源绑定在当前线程，事务挂起时解绑、恢复时重新绑定，提交或回滚后丢弃；
+ * 不在事务中时不做缓存
+ * @version 1.0
+ * @since 1.0
+ */
+public class IdentityMap {
+    private static final boolean TRANSACTION_PRESENT = ClassUtils.isPresent(
+            "org.springframework.transaction.support.TransactionSynchronizationManager", IdentityMap.class.getClassLoader());
+
+    /**
+     * 已确认不存在的主键占位
+     */
+    private static final Object ABSENT = new Object();
+
+    /**
+     * 查询缓存
+     *
+     * @param tableClass 实体类型
+     * @param id         已转换为主键类型的主键值
+     * @param <T>        实体类型
+     * @return 查询结果，未缓存时isHit为false；已确认不存在时命中且实体为null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Lookup<T> find(Class<T> tableClass, Object id) {
+        Map<Class<?>, Map<Object, Object>> scope = scope(false);
+        if (scope == null || id == null) {
+            return Lookup.miss();
+        }
+        Map<Object, Object> entities = scope.get(tableClass);
+        Object entity = entities == null ? null : entities.get(id);
+        if (entity == null) {
+            return Lookup.miss();
+        }
+        return new Lookup<>(true, entity == ABSENT ? null : (T) entity);
+    }
+
+    /**
+     * 记录已加载的实体
+     *
+     * @param tableClass 实体类型
+     * @param id         已转换为主键类型的主键值
+     * @param entity     实体，为null时记录为不存在
+     */
+    public void put(Class<?> tableClass, Object id, Object entity) {
+        Map<Class<?>, Map<Object, Object>> scope = scope(true);
+        if (scope == null || id == null) {
+            return;
+        }
+        scope.computeIfAbsent(tableClass, k -> new HashMap<>()).put(id, entity == null ? ABSENT : entity);
+    }
+
+    /**
+     * 移除实体类型的全部缓存，用于无法确定影响范围的批量写
+     *
+     * @param tableClass 实体类型
+     */
+    public void evict(Class<?> tableClass) {
+        Map<Class<?>, Map<Object, Object>> scope = scope(false);
+        if (scope != null) {
+            scope.remove(tableClass);
+        }
+    }
+
+    /**
+     * 清空当前事务的全部缓存，用于原生sql写操作之后
+     */
+    public void clear() {
+        Map<Class<?>, Map<Object, Object>> scope = scope(false);
+        if (scope != null) {
+            scope.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Class<?>, Map<Object, Object>> scope(boolean create) {
+        if (!TRANSACTION_PRESENT || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<Class<?>, Map<Object, Object>> scope = (Map<Class<?>, Map<Object, Object>>) TransactionSynchronizationManager.getResource(this);
+        if (scope != null || !create) {
+            return scope;
+        }
+        Map<Class<?>, Map<Object, Object>> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(IdentityMap.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(IdentityMap.this, created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(IdentityMap.this);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * 缓存查询结果，区分未缓存、已确认不存在与已加载
+     *
+     * @param <T> 实体类型
+     */
+    public static final class Lookup<T> {
+        private static final Lookup<?> MISS = new Lookup<>(false, null);
+
+        private final boolean hit;
+        private final T entity;
+
+        private Lookup(boolean hit, T entity) {
+            this.hit = hit;
+            this.entity = entity;
+        }
+
+        @SuppressWarnings("unchecked")
+        public static <T> Lookup<T> miss() {
+            return (Lookup<T>) MISS;
+        }
+
+        /**
+         * 是否命中缓存，未命中时需查询数据库
+         *
+         * @return 是否命中
+         */
+        public boolean isHit() {
+            return hit;
+        }
+
+        /**
+         * 命中时的实体
+         *
+         * @return 实体，已确认不存在或未命中时为null
+         */
+        public T getEntity() {
+            return entity;
+        }
+    }
+}
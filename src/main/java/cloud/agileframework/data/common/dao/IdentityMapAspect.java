@@ -0,0 +1,25 @@
+package cloud.agileframework.data.common.dao;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.After;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/22 14:20
+ * 描述 原生sql写操作的影响范围无法确定，执行后清空当前事务的标识映射，
+ * 避免后续findOne、existsById返回写之前缓存的实体
+ * @version 1.0
+ * @since 1.0
+ */
+@Aspect
+public class IdentityMapAspect {
+
+    @After("execution(* cloud.agileframework.data.common.dao.BaseDao+.*BySQL(..)) && target(dao)")
+    public void clear(JoinPoint joinPoint, BaseDao dao) {
+        if (!OperationType.isReadOnly(((MethodSignature) joinPoint.getSignature()).getMethod())) {
+            dao.clearIdentity();
+        }
+    }
+}
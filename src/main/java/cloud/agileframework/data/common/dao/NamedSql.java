@@ -0,0 +1,101 @@
+package cloud.agileframework.data.common.dao;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author 佟盟
+ * 日期 2021/05/06 15:10
+ * 描述 将{Map的key值}形式占位的sql转换为?占位的sql与按顺序排列的参数，
+ * 集合与数组参数展开为多个?，用于in条件；单引号字符串中的内容保持不变
+ * @version 1.0
+ * @since 1.0
+ */
+public final class NamedSql {
+    private final String sql;
+    private final Object[] parameters;
+
+    private NamedSql(String sql, Object[] parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    /**
+     * 按参数形式转换：参数为单个Map时按{key}占位转换，否则视为?占位的参数数组原样返回
+     *
+     * @param sql        sql
+     * @param parameters 参数
+     * @return 转换结果
+     */
+    public static NamedSql of(String sql, Object... parameters) {
+        if (parameters != null && parameters.length == 1 && parameters[0] instanceof Map) {
+            return parse(sql, (Map<?, ?>) parameters[0]);
+        }
+        return new NamedSql(sql, parameters);
+    }
+
+    /**
+     * 将{key}占位转换为?占位
+     *
+     * @param sql        {key}形式占位的sql
+     * @param parameters 参数
+     * @return 转换结果
+     */
+    public static NamedSql parse(String sql, Map<?, ?> parameters) {
+        StringBuilder result = new StringBuilder(sql.length());
+        List<Object> values = new ArrayList<>();
+        boolean quoted = false;
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            int end = quoted || c != '{' ? -1 : sql.indexOf('}', i + 1);
+            if (end < 0) {
+                result.append(c);
+                i++;
+                continue;
+            }
+            String key = sql.substring(i + 1, end).trim();
+            if (!parameters.containsKey(key)) {
+                throw new IllegalArgumentException("Missing sql parameter " + key);
+            }
+            append(result, values, parameters.get(key));
+            i = end + 1;
+        }
+        return new NamedSql(result.toString(), values.toArray());
+    }
+
+    private static void append(StringBuilder sql, List<Object> values, Object value) {
+        List<Object> expanded = new ArrayList<>();
+        if (value instanceof Collection) {
+            expanded.addAll((Collection<?>) value);
+        } else if (value != null && value.getClass().isArray() && !(value instanceof byte[])) {
+            for (int i = 0; i < Array.getLength(value); i++) {
+                expanded.add(Array.get(value, i));
+            }
+        } else {
+            expanded.add(value);
+        }
+        if (expanded.isEmpty()) {
+            // 空集合的in条件不匹配任何数据
+            expanded.add(null);
+        }
+        for (int i = 0; i < expanded.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            values.add(expanded.get(i));
+        }
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public Object[] getParameters() {
+        return parameters;
+    }
+}
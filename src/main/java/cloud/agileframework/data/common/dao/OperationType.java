@@ -0,0 +1,107 @@
+package cloud.agileframework.data.common.dao;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 16:40
+ * 描述 BaseDao操作分类，按方法名划分为读、写、批量写与原生sql，供读写分离、限流等切面使用
+ * @version 1.0
+ * @since 1.0
+ */
+public enum OperationType {
+    /**
+     * 读操作，如find、page、count、exists、contains
+     */
+    READ,
+    /**
+     * 单条写操作，如save、update、delete
+     */
+    WRITE,
+    /**
+     * 批量写操作，如batchInsert、batchUpdate、batchDelete、deleteInBatch
+     */
+    BATCH_WRITE,
+    /**
+     * 原生sql操作，如findBySQL、pageBySQL、updateBySQL
+     */
+    RAW_SQL,
+    /**
+     * 不访问数据库的操作，如sql生成、元数据读取
+     */
+    NONE;
+
+    private static final String[] READ_PREFIX = {"find", "page", "count", "exists", "contains", "aggregate", "export", "stream"};
+    private static final String[] WRITE_PREFIX = {"save", "update", "delete", "insert", "sync", "import"};
+
+    /**
+     * 根据方法判断操作类型
+     *
+     * @param method BaseDao中的方法
+     * @return 操作类型
+     */
+    public static OperationType of(Method method) {
+        String name = method.getName();
+        if (name.endsWith("BySQL")) {
+            return RAW_SQL;
+        }
+        if (name.startsWith("batch") || name.contains("InBatch") || name.endsWith("All")) {
+            return startsWith(name, READ_PREFIX) ? READ : BATCH_WRITE;
+        }
+        if (startsWith(name, READ_PREFIX)) {
+            return READ;
+        }
+        if (startsWith(name, WRITE_PREFIX)) {
+            return WRITE;
+        }
+        return NONE;
+    }
+
+    /**
+     * 判断方法是否只读，原生sql中除updateBySQL外均视为只读
+     *
+     * @param method BaseDao中的方法
+     * @return 是否只读
+     */
+    public static boolean isReadOnly(Method method) {
+        OperationType type = of(method);
+        if (type == RAW_SQL) {
+            return !startsWith(method.getName(), WRITE_PREFIX);
+        }
+        return type == READ;
+    }
+
+    /**
+     * 从参数中识别实体类型，优先取Class参数，其次取实体对象或实体集合的元素类型
+     *
+     * @param args 方法参数
+     * @return 实体类型，原生sql未指定实体时为null
+     */
+    public static Class<?> entityClass(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof Class) {
+                return (Class<?>) arg;
+            }
+        }
+        if (args.length == 0 || args[0] == null || args[0] instanceof CharSequence) {
+            return null;
+        }
+        Object first = args[0];
+        if (first instanceof Iterable) {
+            Iterator<?> iterator = ((Iterable<?>) first).iterator();
+            Object element = iterator.hasNext() ? iterator.next() : null;
+            return element == null ? null : element.getClass();
+        }
+        return first.getClass();
+    }
+
+    private static boolean startsWith(String name, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
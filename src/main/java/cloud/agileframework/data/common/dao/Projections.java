@@ -0,0 +1,171 @@
+package cloud.agileframework.data.common.dao;
+
+import cloud.agileframework.common.util.clazz.TypeReference;
+import cloud.agileframework.common.util.object.ObjectUtil;
+import cloud.agileframework.common.util.string.StringUtil;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/12 10:20
+ * 描述 投影查询工具，负责推导投影类型对应的字段，以及为接口类型的投影生成代理
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Projections {
+    private Projections() {
+    }
+
+    /**
+     * 推导投影类型需要查询的字段，接口类型取getter方法，普通类型取非静态属性
+     *
+     * @param projection 投影类型
+     * @param columns    实体的全部字段
+     * @return 需要查询的字段名
+     */
+    public static String[] columnsOf(Class<?> projection, List<ColumnName> columns) {
+        Set<String> properties = new LinkedHashSet<>();
+        if (projection.isInterface()) {
+            for (Method method : projection.getMethods()) {
+                String property = propertyOf(method);
+                if (property != null) {
+                    properties.add(property);
+                }
+            }
+        } else {
+            for (Class<?> c = projection; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        properties.add(field.getName());
+                    }
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>(properties.size());
+        for (String property : properties) {
+            columns.stream().filter(c -> c.matches(property)).findFirst().ifPresent(c -> result.add(c.getName()));
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * 将一行查询结果包装成接口类型的投影，getter方法按属性名或字段名取值
+     *
+     * @param projection 接口类型
+     * @param row        一行查询结果
+     * @param columns    实体的全部字段
+     * @param <R>        投影类型
+     * @return 代理对象
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R proxy(Class<R> projection, Map<String, Object> row, List<ColumnName> columns) {
+        Map<String, Object> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        values.putAll(row);
+        return (R) Proxy.newProxyInstance(projection.getClassLoader(), new Class[]{projection}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return projection.getName() + values;
+                }
+            }
+            if (method.isDefault()) {
+                return invokeDefault(proxy, method, args);
+            }
+            String property = propertyOf(method);
+            if (property == null) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Object value = values.get(property);
+            if (value == null) {
+                value = columns.stream().filter(c -> c.matches(property))
+                        .findFirst()
+                        .map(c -> values.get(c.getName()))
+                        .orElse(null);
+            }
+            if (value == null) {
+                return null;
+            }
+            return ObjectUtil.to(value, new TypeReference<>(method.getReturnType()));
+        });
+    }
+
+    /**
+     * 将实体包装成接口类型的投影，用于需要先在实体上完成字典翻译的场景，
+     * getter方法按实体属性取值，包含字典翻译写入的非字段属性
+     *
+     * @param projection 接口类型
+     * @param entity     实体
+     * @param columns    实体的全部字段
+     * @param <R>        投影类型
+     * @return 代理对象
+     */
+    public static <R> R proxy(Class<R> projection, Object entity, List<ColumnName> columns) {
+        Map<String, Object> values = new HashMap<>();
+        try {
+            for (Class<?> c = entity.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && !values.containsKey(field.getName())) {
+                        field.setAccessible(true);
+                        values.put(field.getName(), field.get(entity));
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return proxy(projection, values, columns);
+    }
+
+    /**
+     * 调用投影接口的default方法
+     */
+    private static Object invokeDefault(Object proxy, Method method, Object[] args) throws Throwable {
+        Class<?> declaringClass = method.getDeclaringClass();
+        MethodHandles.Lookup lookup;
+        try {
+            // java 9及以上
+            Method privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+            lookup = (MethodHandles.Lookup) privateLookupIn.invoke(null, declaringClass, MethodHandles.lookup());
+        } catch (NoSuchMethodException e) {
+            // java 8
+            Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+            constructor.setAccessible(true);
+            lookup = constructor.newInstance(declaringClass, MethodHandles.Lookup.PRIVATE);
+        }
+        return lookup.unreflectSpecial(method, declaringClass)
+                .bindTo(proxy)
+                .invokeWithArguments(args == null ? new Object[0] : args);
+    }
+
+    private static String propertyOf(Method method) {
+        if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+            return null;
+        }
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return StringUtil.toLowerName(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2) {
+            return StringUtil.toLowerName(name.substring(2));
+        }
+        return null;
+    }
+}
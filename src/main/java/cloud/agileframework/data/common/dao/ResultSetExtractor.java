@@ -0,0 +1,23 @@
+package cloud.agileframework.data.common.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/08 9:50
+ * 描述 结果集处理器，直接基于jdbc游标读取查询结果
+ * @version 1.0
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface ResultSetExtractor<R> {
+    /**
+     * 读取结果集
+     *
+     * @param resultSet 只进只读的结果集
+     * @return 处理结果
+     * @throws SQLException 读取异常
+     */
+    R extract(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,500 @@
+package cloud.agileframework.data.common.dao;
+
+import cloud.agileframework.common.util.clazz.TypeReference;
+import cloud.agileframework.common.util.object.ObjectUtil;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/08 10:12
+ * 描述 列式存储的紧凑结果集，全部行共享一份列索引，数值与布尔类型的列使用基本类型数组存储，
+ * 转换为Map或实体时按行延迟转换
+ * @version 1.0
+ * @since 1.0
+ */
+public class RowSet implements Iterable<RowSet.Row> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String[] columnNames;
+    private final Map<String, Integer> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Column[] columns;
+    private int size;
+
+    private RowSet(String[] columnNames, Column[] columns) {
+        this.columnNames = columnNames;
+        this.columns = columns;
+        for (int i = 0; i < columnNames.length; i++) {
+            index.putIfAbsent(columnNames[i], i);
+        }
+    }
+
+    /**
+     * 读取结果集的全部行
+     *
+     * @param resultSet 结果集
+     * @return 列式结果集
+     * @throws SQLException 读取异常
+     */
+    public static RowSet from(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+        String[] names = new String[count];
+        Column[] columns = new Column[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = metaData.getColumnLabel(i + 1);
+            columns[i] = Column.of(metaData.getColumnClassName(i + 1));
+        }
+
+        RowSet rowSet = new RowSet(names, columns);
+        while (resultSet.next()) {
+            int row = rowSet.size;
+            for (int i = 0; i < count; i++) {
+                columns[i].read(resultSet, i + 1, row);
+            }
+            rowSet.size++;
+        }
+        return rowSet;
+    }
+
+    /**
+     * 由单行数据构造结果集，用于在内存中归并的结果
+     *
+     * @param columnNames 字段名
+     * @param values      字段值，与字段名一一对应
+     * @return 单行结果集
+     */
+    public static RowSet of(String[] columnNames, Object[] values) {
+        if (columnNames.length != values.length) {
+            throw new IllegalArgumentException("Expected " + columnNames.length + " values but found " + values.length);
+        }
+        Column[] columns = new Column[columnNames.length];
+        for (int i = 0; i < columns.length; i++) {
+            ObjectColumn column = new ObjectColumn();
+            column.set(0, values[i]);
+            columns[i] = column;
+        }
+        RowSet rowSet = new RowSet(columnNames.clone(), columns);
+        rowSet.size = 1;
+        return rowSet;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames.clone();
+    }
+
+    /**
+     * 取字段下标，忽略大小写
+     *
+     * @param columnName 字段名
+     * @return 字段下标
+     */
+    public int indexOf(String columnName) {
+        Integer i = index.get(columnName);
+        if (i == null) {
+            throw new IllegalArgumentException("Unknown column " + columnName);
+        }
+        return i;
+    }
+
+    public boolean isNull(int row, int column) {
+        checkRow(row);
+        return columns[column].nulls.get(row);
+    }
+
+    public long getLong(int row, int column) {
+        checkRow(row);
+        return columns[column].getLong(row);
+    }
+
+    public int getInt(int row, int column) {
+        checkRow(row);
+        return columns[column].getInt(row);
+    }
+
+    public double getDouble(int row, int column) {
+        checkRow(row);
+        return columns[column].getDouble(row);
+    }
+
+    public boolean getBoolean(int row, int column) {
+        checkRow(row);
+        return columns[column].getBoolean(row);
+    }
+
+    public Object getObject(int row, int column) {
+        checkRow(row);
+        Column c = columns[column];
+        return c.nulls.get(row) ? null : c.get(row);
+    }
+
+    /**
+     * 取行视图
+     *
+     * @param row 行号
+     * @return 行视图
+     */
+    public Row row(int row) {
+        checkRow(row);
+        return new Row(row);
+    }
+
+    /**
+     * 遍历全部行，遍历过程中复用同一个行视图，需要保留时调用Row#toMap
+     *
+     * @return 行迭代器
+     */
+    @Override
+    public Iterator<Row> iterator() {
+        Row cursor = new Row(-1);
+        return new Iterator<Row>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.row + 1 < size;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                cursor.row++;
+                return cursor;
+            }
+        };
+    }
+
+    /**
+     * 以Map列表形式访问，每行在被访问时才转换为Map
+     *
+     * @return Map列表视图
+     */
+    public List<Map<String, Object>> toMaps() {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(int i) {
+                return row(i).toMap();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * 以实体列表形式访问，每行在被访问时才转换为实体
+     *
+     * @param clazz 实体类型
+     * @param <T>   实体类型
+     * @return 实体列表视图
+     */
+    public <T> List<T> toList(Class<T> clazz) {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int i) {
+                return ObjectUtil.to(row(i).toMap(), new TypeReference<>(clazz));
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    /**
+     * 行视图，不持有数据，只记录行号
+     */
+    public final class Row {
+        private int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        public int getRowNum() {
+            return row;
+        }
+
+        public boolean isNull(String column) {
+            return RowSet.this.isNull(row, indexOf(column));
+        }
+
+        public long getLong(String column) {
+            return RowSet.this.getLong(row, indexOf(column));
+        }
+
+        public int getInt(String column) {
+            return RowSet.this.getInt(row, indexOf(column));
+        }
+
+        public double getDouble(String column) {
+            return RowSet.this.getDouble(row, indexOf(column));
+        }
+
+        public boolean getBoolean(String column) {
+            return RowSet.this.getBoolean(row, indexOf(column));
+        }
+
+        public Object getObject(String column) {
+            return RowSet.this.getObject(row, indexOf(column));
+        }
+
+        public Object getObject(int column) {
+            return RowSet.this.getObject(row, column);
+        }
+
+        /**
+         * 转换为Map，字段顺序与查询结果一致
+         *
+         * @return Map
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>(columnNames.length * 4 / 3 + 1);
+            for (int i = 0; i < columnNames.length; i++) {
+                map.put(columnNames[i], RowSet.this.getObject(row, i));
+            }
+            return map;
+        }
+    }
+
+    private abstract static class Column {
+        protected final BitSet nulls = new BitSet();
+
+        static Column of(String className) {
+            if (Long.class.getName().equals(className)) {
+                return new LongColumn();
+            }
+            if (Integer.class.getName().equals(className) || Short.class.getName().equals(className) || Byte.class.getName().equals(className)) {
+                return new IntColumn();
+            }
+            if (Double.class.getName().equals(className) || Float.class.getName().equals(className)) {
+                return new DoubleColumn();
+            }
+            if (Boolean.class.getName().equals(className)) {
+                return new BooleanColumn();
+            }
+            return new ObjectColumn();
+        }
+
+        abstract void read(ResultSet resultSet, int column, int row) throws SQLException;
+
+        abstract Object get(int row);
+
+        long getLong(int row) {
+            Object v = get(row);
+            return v == null ? 0 : ((Number) v).longValue();
+        }
+
+        int getInt(int row) {
+            Object v = get(row);
+            return v == null ? 0 : ((Number) v).intValue();
+        }
+
+        double getDouble(int row) {
+            Object v = get(row);
+            return v == null ? 0 : ((Number) v).doubleValue();
+        }
+
+        boolean getBoolean(int row) {
+            Object v = get(row);
+            if (v == null) {
+                return false;
+            }
+            if (v instanceof Boolean) {
+                return (Boolean) v;
+            }
+            if (v instanceof Number) {
+                return ((Number) v).doubleValue() != 0;
+            }
+            String text = v.toString().trim();
+            return "true".equalsIgnoreCase(text) || "1".equals(text) || "y".equalsIgnoreCase(text);
+        }
+
+        static int grow(int length, int row) {
+            int capacity = Math.max(length, INITIAL_CAPACITY);
+            while (capacity <= row) {
+                capacity = capacity + (capacity >> 1);
+            }
+            return capacity;
+        }
+    }
+
+    private static class LongColumn extends Column {
+        private long[] values = new long[0];
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = resultSet.getLong(column);
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        int getInt(int row) {
+            return (int) values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+    }
+
+    private static class IntColumn extends Column {
+        private int[] values = new int[0];
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = resultSet.getInt(column);
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return values[row];
+        }
+
+        @Override
+        int getInt(int row) {
+            return values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+    }
+
+    private static class DoubleColumn extends Column {
+        private double[] values = new double[0];
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = resultSet.getDouble(column);
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        long getLong(int row) {
+            return (long) values[row];
+        }
+
+        @Override
+        int getInt(int row) {
+            return (int) values[row];
+        }
+
+        @Override
+        double getDouble(int row) {
+            return values[row];
+        }
+    }
+
+    private static class BooleanColumn extends Column {
+        private final BitSet values = new BitSet();
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            values.set(row, resultSet.getBoolean(column));
+            if (resultSet.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            return values.get(row);
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        @Override
+        void read(ResultSet resultSet, int column, int row) throws SQLException {
+            set(row, resultSet.getObject(column));
+        }
+
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grow(values.length, row));
+            }
+            values[row] = value;
+            if (value == null) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+    }
+}
@@ -1,46 +1,98 @@
 package cloud.agileframework.data.common.dao;
 
 import cloud.agileframework.common.util.object.ObjectUtil;
+import cloud.agileframework.data.common.metadata.EntityMetadata;
+import cloud.agileframework.data.common.metadata.EntityMetadataRegistry;
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.ast.SQLExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * 单行数据包装，字段元数据与行数据分离：字段列表只读共享，字段值按字段顺序保存在本对象的数组中
+ */
 public class TableWrapper<T> {
     private final T o;
     private final List<ColumnName> columns;
+    private final Object[] values;
     private final String tableName;
 
     public TableWrapper(T o, Function<Class<T>, List<ColumnName>> toColumnNamesFunction, Function<Class<T>, String> toTableName) {
         this.o = o;
         Class<T> tClass = (Class<T>) o.getClass();
         this.tableName = toTableName.apply(tClass);
+        EntityMetadata metadata = EntityMetadataRegistry.find(tClass);
         columns = toColumnNamesFunction.apply(tClass).stream()
-                .filter(c -> Arrays.stream(((AccessibleObject) (c.getMember())).getAnnotations()).noneMatch(annotation ->
-                        "Transient".equals(annotation.annotationType().getSimpleName())))
+                .filter(c -> !isTransient(c, metadata))
                 .collect(Collectors.toList());
 
+        values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            ColumnName column = columns.get(i);
+            int index = metadata == null ? -1 : metadata.indexOf(column.getPropertyName());
+            if (index >= 0 && metadata.isReadable(index)) {
+                values[i] = metadata.get(o, index);
+            } else if (column.getMember() instanceof Field) {
+                values[i] = ObjectUtil.getFieldValue(o, (Field) column.getMember());
+            } else if (column.getMember() instanceof Method) {
+                try {
+                    Method method = (Method) column.getMember();
+                    method.setAccessible(true);
+                    values[i] = method.invoke(o);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Failed to read column " + column.getName() + " of " + tClass.getName(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 判断字段是否为瞬态，优先使用编译期生成的元数据，没有时按与生成元数据相同的规则判断：
+     * 声明为transient的属性或标注了Transient注解
+     *
+     * @param column   字段
+     * @param metadata 编译期生成的元数据，可为空
+     * @return 是否瞬态
+     */
+    public static boolean isTransient(ColumnName column, EntityMetadata metadata) {
+        if (metadata != null) {
+            int index = metadata.indexOf(column.getPropertyName());
+            if (index >= 0) {
+                return metadata.isTransient(index);
+            }
+        }
+        Member member = column.getMember();
+        Field field = member instanceof Field ? (Field) member : backingField(member.getDeclaringClass(), column.getPropertyName());
+        if (field != null && (Modifier.isTransient(field.getModifiers()) || hasTransientAnnotation(field))) {
+            return true;
+        }
+        return hasTransientAnnotation((AccessibleObject) member);
+    }
 
-        columns.stream().filter(f -> f.getMember() instanceof Field)
-                .forEach(f -> f.setValue(Optional.ofNullable(ObjectUtil.getFieldValue(o, (Field) f.getMember()))));
+    private static boolean hasTransientAnnotation(AccessibleObject member) {
+        return Arrays.stream(member.getAnnotations()).anyMatch(annotation ->
+                "Transient".equals(annotation.annotationType().getSimpleName()));
+    }
 
-        columns.stream().filter(f -> f.getMember() instanceof Method)
-                .forEach(f -> {
-                    try {
-                        Method method = (Method) f.getMember();
-                        method.setAccessible(true);
-                        f.setValue(Optional.ofNullable(method.invoke(o)));
-                    } catch (IllegalAccessException | InvocationTargetException e) {
-                        e.printStackTrace();
-                    }
-                    f.setValue(Optional.empty());
-                });
+    private static Field backingField(Class<?> clazz, String propertyName) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredField(propertyName);
+            } catch (NoSuchFieldException ignored) {
+                // 继续查找父类
+            }
+        }
+        return null;
     }
 
     public T getO() {
@@ -54,4 +106,54 @@ public class TableWrapper<T> {
     public String getTableName() {
         return tableName;
     }
+
+    /**
+     * 按字段顺序取当前对象的字段值，空值以null表示；返回内部数组，调用方不得修改
+     *
+     * @return 字段值数组
+     */
+    public Object[] getValues() {
+        return values;
+    }
+
+    /**
+     * 取字段值
+     *
+     * @param index 字段在getColumns中的下标
+     * @return 字段值，空值为null
+     */
+    public Object getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * 字段值是否非空
+     *
+     * @param index 字段在getColumns中的下标
+     * @return 是否非空
+     */
+    public boolean hasValue(int index) {
+        return values[index] != null;
+    }
+
+    /**
+     * 生成字段等值条件
+     *
+     * @param index  字段在getColumns中的下标
+     * @param dbType 数据库类型
+     * @return 条件表达式
+     */
+    public SQLBinaryOpExpr sql(int index, DbType dbType) {
+        return columns.get(index).sql(values[index], dbType);
+    }
+
+    /**
+     * 生成字段值表达式
+     *
+     * @param index 字段在getColumns中的下标
+     * @return 值表达式，空值时为null
+     */
+    public SQLExpr sqlValue(int index) {
+        return ColumnName.toSQLValue(values[index]);
+    }
 }
@@ -0,0 +1,49 @@
+package cloud.agileframework.data.common.dao;
+
+import java.io.Serializable;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/29 9:40
+ * 描述 增量读取的水位，由水位字段值与主键组成，水位字段值相同时以主键区分先后
+ * @version 1.0
+ * @since 1.0
+ */
+public class Watermark implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 水位字段值，如更新时间或单调递增的序号
+     */
+    private final Object value;
+    /**
+     * 水位字段值相同时已读到的最大主键，为空时读取水位字段值严格大于value的数据
+     */
+    private final Object id;
+
+    private Watermark(Object value, Object id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public static Watermark of(Object value) {
+        return new Watermark(value, null);
+    }
+
+    public static Watermark of(Object value, Object id) {
+        return new Watermark(value, id);
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public Object getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "Watermark{value=" + value + ", id=" + id + '}';
+    }
+}
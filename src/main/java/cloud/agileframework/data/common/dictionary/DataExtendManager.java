@@ -1,5 +1,7 @@
 package cloud.agileframework.data.common.dictionary;
 
+import java.util.function.UnaryOperator;
+
 /**
  * @author 佟盟
  * 日期 2020/7/15 19:17
@@ -14,4 +16,25 @@ public interface DataExtendManager {
      * @param o 转换前的对象
      */
     void cover(Object o);
+
+    /**
+     * 只针对部分字段的字典转换，用于投影查询，默认退化为全量转换
+     *
+     * @param o      转换前的对象
+     * @param fields 参与转换的字段名或属性名，为空时转换全部字段
+     */
+    default void cover(Object o, String... fields) {
+        cover(o);
+    }
+
+    /**
+     * 取单个字段值的转换器，用于不创建实体的流式场景（如导出）中逐值翻译
+     *
+     * @param tableClass 表对应的实体类型
+     * @param column     字段名
+     * @return 值转换器，字段不需要转换时返回null
+     */
+    default UnaryOperator<Object> valueCover(Class<?> tableClass, String column) {
+        return null;
+    }
 }
@@ -1,7 +1,25 @@
 package cloud.agileframework.data.common.dictionary;
 
+import cloud.agileframework.common.util.clazz.TypeReference;
+import cloud.agileframework.common.util.object.ObjectUtil;
 import cloud.agileframework.dictionary.util.DictionaryUtil;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
 /**
  * @author 佟盟
  * 日期 2020/8/4 9:42
@@ -10,8 +28,244 @@ import cloud.agileframework.dictionary.util.DictionaryUtil;
  * @since 1.0
  */
 public class DictionaryManager implements DataExtendManager {
+    private static final String DICTIONARY_ANNOTATION = "Dictionary";
+
+    /**
+     * 实体类型中声明了字典注解的属性
+     */
+    private final Map<Class<?>, List<Field>> dictionaryFields = new ConcurrentHashMap<>();
+
     @Override
     public void cover(Object o) {
         DictionaryUtil.cover(o);
     }
+
+    /**
+     * 只翻译来源字段在投影内的字典属性，其余字典属性保持不变
+     *
+     * @param o      转换前的对象或对象集合
+     * @param fields 参与转换的字段名或属性名，为空时转换全部字段
+     */
+    @Override
+    public void cover(Object o, String... fields) {
+        if (fields == null || fields.length == 0) {
+            cover(o);
+            return;
+        }
+        List<Object> targets = new ArrayList<>();
+        if (o instanceof Collection) {
+            for (Object e : (Collection<?>) o) {
+                if (e != null) {
+                    targets.add(e);
+                }
+            }
+        } else if (o != null) {
+            targets.add(o);
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        Set<String> projected = new HashSet<>();
+        for (String field : fields) {
+            projected.add(normalize(field));
+        }
+        Class<?> type = targets.get(0).getClass();
+        List<Field> selected = new ArrayList<>();
+        for (Field field : dictionaryFields(type)) {
+            if (isProjected(field, projected)) {
+                selected.add(field);
+            }
+        }
+        if (selected.isEmpty()) {
+            return;
+        }
+        translate(type, targets, selected);
+    }
+
+    /**
+     * 取以该字段为唯一来源字段的字典属性，逐值翻译为字典属性的值，同一转换器内相同的值只翻译一次
+     *
+     * @param tableClass 表对应的实体类型
+     * @param column     字段名
+     * @return 值转换器，字段不是字典来源字段时返回null
+     */
+    @Override
+    public UnaryOperator<Object> valueCover(Class<?> tableClass, String column) {
+        if (tableClass == null || column == null) {
+            return null;
+        }
+        String key = normalize(column);
+        for (Field field : dictionaryFields(tableClass)) {
+            List<Field> sources = sourceFields(tableClass, field);
+            if (sources.size() == 1 && normalize(sources.get(0).getName()).equals(key)) {
+                return new ValueCover(tableClass, sources.get(0), field);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 只翻译指定的字典属性：将其来源字段复制到空白实例上执行翻译，再将翻译结果写回，
+     * 空白实例上其余字典属性的来源字段为空，不产生翻译
+     */
+    private void translate(Class<?> type, List<Object> targets, List<Field> selected) {
+        List<Field> sources = new ArrayList<>();
+        for (Field field : selected) {
+            for (Field source : sourceFields(type, field)) {
+                if (!sources.contains(source)) {
+                    sources.add(source);
+                }
+            }
+        }
+        try {
+            List<Object> probes = new ArrayList<>(targets.size());
+            for (Object target : targets) {
+                Object probe = newInstance(type);
+                for (Field source : sources) {
+                    source.set(probe, source.get(target));
+                }
+                probes.add(probe);
+            }
+            DictionaryUtil.cover(probes);
+            for (int t = 0; t < targets.size(); t++) {
+                for (Field field : selected) {
+                    field.set(targets.get(t), field.get(probes.get(t)));
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object newInstance(Class<?> type) throws ReflectiveOperationException {
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    /**
+     * 字典属性的来源字段，未声明来源字段时为属性自身
+     */
+    private static List<Field> sourceFields(Class<?> type, Field field) {
+        List<Field> result = new ArrayList<>();
+        for (String source : sourcesOf(dictionaryOf(field))) {
+            Field sourceField = fieldOf(type, source);
+            if (sourceField != null) {
+                result.add(sourceField);
+            }
+        }
+        if (result.isEmpty()) {
+            result.add(field);
+        }
+        return result;
+    }
+
+    private static Field fieldOf(Class<?> type, String name) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && normalize(field.getName()).equals(normalize(name))) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<Field> dictionaryFields(Class<?> type) {
+        return dictionaryFields.computeIfAbsent(type, k -> {
+            List<Field> result = new ArrayList<>();
+            for (Class<?> c = k; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && dictionaryOf(field) != null) {
+                        field.setAccessible(true);
+                        result.add(field);
+                    }
+                }
+            }
+            return result.isEmpty() ? Collections.emptyList() : result;
+        });
+    }
+
+    /**
+     * 字典属性的来源字段是否在投影内，未声明来源字段时以属性自身判断
+     */
+    private static boolean isProjected(Field field, Set<String> projected) {
+        if (projected.contains(normalize(field.getName()))) {
+            return true;
+        }
+        for (String source : sourcesOf(dictionaryOf(field))) {
+            if (projected.contains(normalize(source))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Annotation dictionaryOf(Field field) {
+        for (Annotation annotation : field.getAnnotations()) {
+            if (DICTIONARY_ANNOTATION.equals(annotation.annotationType().getSimpleName())) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static String[] sourcesOf(Annotation dictionary) {
+        try {
+            Method method = dictionary.annotationType().getMethod("fieldName");
+            Object value = method.invoke(dictionary);
+            if (value instanceof String[]) {
+                return (String[]) value;
+            }
+            return value == null ? new String[0] : new String[]{value.toString()};
+        } catch (ReflectiveOperationException e) {
+            return new String[0];
+        }
+    }
+
+    /**
+     * 统一字段名与属性名，忽略大小写与下划线
+     */
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase();
+    }
+
+    /**
+     * 单字段值转换器，在空白实例上设置来源字段后翻译，取字典属性的值作为结果，未翻译出结果时保留原值
+     */
+    private static class ValueCover implements UnaryOperator<Object> {
+        private final Class<?> type;
+        private final Field source;
+        private final Field target;
+        private final Map<Object, Object> translated = new HashMap<>();
+
+        ValueCover(Class<?> type, Field source, Field target) {
+            this.type = type;
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public Object apply(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (translated.containsKey(value)) {
+                return translated.get(value);
+            }
+            try {
+                Object probe = newInstance(type);
+                source.set(probe, ObjectUtil.to(value, new TypeReference<>(source.getType())));
+                DictionaryUtil.cover(probe);
+                Object result = target.get(probe);
+                result = result == null ? value : result;
+                translated.put(value, result);
+                return result;
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package cloud.agileframework.data.common.export;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/15 14:20
+ * 描述 导出格式
+ * @version 1.0
+ * @since 1.0
+ */
+public enum ExportFormat {
+    /**
+     * 逗号分隔，首行为字段名，按RFC 4180转义
+     */
+    CSV,
+    /**
+     * 制表符分隔，首行为字段名，值中的制表符与换行符转义为\t、\n
+     */
+    TSV,
+    /**
+     * json数组，每行一个对象
+     */
+    JSON,
+    /**
+     * 每行一个json对象，行之间以换行分隔
+     */
+    JSON_LINES
+}
@@ -0,0 +1,301 @@
+package cloud.agileframework.data.common.export;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.function.UnaryOperator;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/15 14:35
+ * 描述 结果集导出器，直接从jdbc游标读取字段值，编码到复用的字节缓冲区后写入通道，
+ * 导出过程中不为每行创建实体或Map
+ * @version 1.0
+ * @since 1.0
+ */
+public class ExportWriter {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+    private final ExportFormat format;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer bytes;
+    private final StringBuilder line = new StringBuilder(256);
+    private CharBuffer chars = CharBuffer.allocate(256);
+
+    public ExportWriter(WritableByteChannel channel, ExportFormat format) {
+        this(channel, format, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ExportWriter(WritableByteChannel channel, ExportFormat format, int bufferSize) {
+        this.channel = channel;
+        this.format = format;
+        this.bytes = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * 导出结果集的全部行
+     *
+     * @param resultSet 只进只读的结果集
+     * @param covers    按字段下标排列的值转换器，用于字典翻译，可为空或包含空元素
+     * @return 导出的行数
+     * @throws SQLException 读取异常
+     */
+    public long write(ResultSet resultSet, UnaryOperator<Object>[] covers) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+        String[] labels = new String[count];
+        boolean[] raw = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            raw[i] = isRaw(metaData.getColumnType(i + 1));
+        }
+
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            line.setLength(0);
+            appendJsonString(labels[i]);
+            keys[i] = line.append(':').toString();
+        }
+
+        begin(labels);
+        long rows = 0;
+        while (resultSet.next()) {
+            line.setLength(0);
+            if (format == ExportFormat.JSON && rows > 0) {
+                line.append(',');
+            }
+            if (format == ExportFormat.JSON || format == ExportFormat.JSON_LINES) {
+                line.append('{');
+            }
+            for (int i = 0; i < count; i++) {
+                UnaryOperator<Object> cover = covers == null ? null : covers[i];
+                String value;
+                boolean rawValue = raw[i];
+                if (cover != null) {
+                    Object v = cover.apply(resultSet.getObject(i + 1));
+                    value = v == null ? null : v.toString();
+                    rawValue = v instanceof Number || v instanceof Boolean;
+                } else {
+                    value = resultSet.getString(i + 1);
+                }
+                appendValue(i, keys[i], value, rawValue);
+            }
+            if (format == ExportFormat.JSON || format == ExportFormat.JSON_LINES) {
+                line.append('}');
+            }
+            if (format != ExportFormat.JSON) {
+                line.append('\n');
+            }
+            encode(false);
+            rows++;
+        }
+        end();
+        return rows;
+    }
+
+    private void begin(String[] labels) {
+        line.setLength(0);
+        switch (format) {
+            case CSV:
+            case TSV:
+                for (int i = 0; i < labels.length; i++) {
+                    appendValue(i, null, labels[i], false);
+                }
+                line.append('\n');
+                break;
+            case JSON:
+                line.append('[');
+                break;
+            default:
+        }
+        encode(false);
+    }
+
+    private void end() {
+        line.setLength(0);
+        if (format == ExportFormat.JSON) {
+            line.append(']');
+        }
+        encode(true);
+        flush();
+    }
+
+    private void appendValue(int index, String key, String value, boolean raw) {
+        switch (format) {
+            case CSV:
+                if (index > 0) {
+                    line.append(',');
+                }
+                appendCsv(value);
+                break;
+            case TSV:
+                if (index > 0) {
+                    line.append('\t');
+                }
+                appendTsv(value);
+                break;
+            default:
+                if (index > 0) {
+                    line.append(',');
+                }
+                line.append(key);
+                if (value == null) {
+                    line.append("null");
+                } else if (raw) {
+                    line.append(value);
+                } else {
+                    appendJsonString(value);
+                }
+        }
+    }
+
+    private void appendCsv(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private void appendTsv(String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\t':
+                    line.append("\\t");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                default:
+                    line.append(c);
+            }
+        }
+    }
+
+    private void appendJsonString(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    private void encode(boolean endOfInput) {
+        int length = line.length();
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+        chars.clear();
+        line.getChars(0, length, chars.array(), 0);
+        chars.limit(length);
+        try {
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isOverflow()) {
+                    flush();
+                    continue;
+                }
+                if (result.isError()) {
+                    result.throwException();
+                }
+                break;
+            }
+            if (endOfInput) {
+                while (encoder.flush(bytes).isOverflow()) {
+                    flush();
+                }
+            }
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() {
+        bytes.flip();
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytes.clear();
+    }
+
+    private static boolean isRaw(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
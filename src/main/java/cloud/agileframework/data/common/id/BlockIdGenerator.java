@@ -0,0 +1,163 @@
+package cloud.agileframework.data.common.id;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/19 10:30
+ * 描述 号段（hi-lo）主键，从序列表一次申请一段连续主键在内存中分配。
+ * 序列表结构：create table agile_id_sequence(name varchar(128) primary key, next_value bigint not null)。
+ * 号段以乐观锁方式申请（update ... where next_value = 旧值），多实例并发安全；
+ * 申请使用独立的自动提交连接，不受调用方事务回滚影响，避免回滚后重复发号。
+ * 段内分配只有一次原子自增，线程间无锁竞争，仅在号段用尽时由一个线程补充
+ * @version 1.0
+ * @since 1.0
+ */
+public class BlockIdGenerator implements IdGenerator {
+    private static final int MAX_RETRY = 16;
+
+    private final DataSource dataSource;
+    private final String table;
+    private final int blockSize;
+    private final Function<Class<?>, String> sequenceName;
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    public BlockIdGenerator(DataSource dataSource, int blockSize) {
+        this(dataSource, "agile_id_sequence", blockSize, Class::getName);
+    }
+
+    /**
+     * @param dataSource   申请号段使用的数据源
+     * @param table        序列表名
+     * @param blockSize    每次申请的号段长度
+     * @param sequenceName 实体类型对应的序列名
+     */
+    public BlockIdGenerator(DataSource dataSource, String table, int blockSize, Function<Class<?>, String> sequenceName) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.dataSource = dataSource;
+        this.table = table;
+        this.blockSize = blockSize;
+        this.sequenceName = sequenceName;
+    }
+
+    @Override
+    public Long next(Class<?> tableClass) {
+        return sequence(tableClass).next();
+    }
+
+    private Sequence sequence(Class<?> tableClass) {
+        return sequences.computeIfAbsent(sequenceName.apply(tableClass), Sequence::new);
+    }
+
+    /**
+     * 从序列表申请一个号段
+     *
+     * @param name 序列名
+     * @return 号段起始值，号段为[起始值, 起始值 + blockSize)
+     */
+    private long allocate(String name) {
+        String select = "select next_value from " + table + " where name = ?";
+        String update = "update " + table + " set next_value = ? where name = ? and next_value = ?";
+        String insert = "insert into " + table + " (name, next_value) values (?, ?)";
+        SQLException conflict = null;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            for (int i = 0; i < MAX_RETRY; i++) {
+                Long current = null;
+                try (PreparedStatement statement = connection.prepareStatement(select)) {
+                    statement.setString(1, name);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (resultSet.next()) {
+                            current = resultSet.getLong(1);
+                        }
+                    }
+                }
+                if (current == null) {
+                    try (PreparedStatement statement = connection.prepareStatement(insert)) {
+                        statement.setString(1, name);
+                        statement.setLong(2, 1L + blockSize);
+                        statement.executeUpdate();
+                        return 1L;
+                    } catch (SQLException e) {
+                        if (!isDuplicateKey(e)) {
+                            throw e;
+                        }
+                        // 其他实例已插入，重新读取
+                        conflict = e;
+                        continue;
+                    }
+                }
+                try (PreparedStatement statement = connection.prepareStatement(update)) {
+                    statement.setLong(1, current + blockSize);
+                    statement.setString(2, name);
+                    statement.setLong(3, current);
+                    if (statement.executeUpdate() == 1) {
+                        return current;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to allocate id block for " + name, e);
+        }
+        throw new IllegalStateException("Failed to allocate id block for " + name + " after " + MAX_RETRY + " retries", conflict);
+    }
+
+    /**
+     * 唯一约束冲突，SQLState以23开头（完整性约束违反）
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            String state = current.getSQLState();
+            if (state != null && state.startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Block {
+        private final long end;
+        private final AtomicLong next;
+
+        Block(long start, long end) {
+            this.end = end;
+            this.next = new AtomicLong(start);
+        }
+    }
+
+    private final class Sequence {
+        private final String name;
+        private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+        Sequence(String name) {
+            this.name = name;
+        }
+
+        long next() {
+            while (true) {
+                Block block = current.get();
+                long id = block.next.getAndIncrement();
+                if (id < block.end) {
+                    return id;
+                }
+                synchronized (this) {
+                    if (current.get() == block) {
+                        long start = allocate(name);
+                        current.set(new Block(start, start + blockSize));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package cloud.agileframework.data.common.id;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/19 9:30
+ * 描述 客户端主键生成器，批量插入前在内存中为实体分配主键，插入可以完全批量执行且无需回读主键
+ * @version 1.0
+ * @since 1.0
+ */
+public interface IdGenerator {
+    /**
+     * 生成一个主键
+     *
+     * @param tableClass 实体类型
+     * @return 主键
+     */
+    Object next(Class<?> tableClass);
+
+    /**
+     * 一次生成多个主键
+     *
+     * @param tableClass 实体类型
+     * @param count      个数
+     * @return 主键数组
+     */
+    default Object[] next(Class<?> tableClass, int count) {
+        Object[] ids = new Object[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = next(tableClass);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,67 @@
+package cloud.agileframework.data.common.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/19 9:42
+ * 描述 雪花算法主键，41位毫秒时间戳 + 10位节点号 + 12位序号。
+ * 以单个AtomicLong保存“时间戳与序号”并CAS推进，无锁；同一毫秒序号用尽或时钟回拨时
+ * 借用后续毫秒继续递增，保证同一节点内严格单调
+ * @version 1.0
+ * @since 1.0
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_WORKER = (1L << WORKER_BITS) - 1;
+    /**
+     * 默认起始时间 2021-01-01 00:00:00 UTC
+     */
+    private static final long DEFAULT_EPOCH = 1609459200000L;
+
+    private final long workerId;
+    private final long epoch;
+    /**
+     * 高位为相对起始时间的毫秒数，低12位为序号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, DEFAULT_EPOCH);
+    }
+
+    public SnowflakeIdGenerator(long workerId, long epoch) {
+        if (workerId < 0 || workerId > MAX_WORKER) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER);
+        }
+        this.workerId = workerId;
+        this.epoch = epoch;
+    }
+
+    @Override
+    public Long next(Class<?> tableClass) {
+        return nextId();
+    }
+
+    public long nextId() {
+        long current;
+        long next;
+        do {
+            current = state.get();
+            long now = (System.currentTimeMillis() - epoch) << SEQUENCE_BITS;
+            next = now > current ? now : current + 1;
+        } while (!state.compareAndSet(current, next));
+        return ((next >>> SEQUENCE_BITS) << (SEQUENCE_BITS + WORKER_BITS)) | (workerId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    @Override
+    public Object[] next(Class<?> tableClass, int count) {
+        Object[] ids = new Object[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,43 @@
+package cloud.agileframework.data.common.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/19 10:05
+ * 描述 UUIDv7主键，48位毫秒时间戳 + 版本号 + 74位随机数，按时间大致有序，
+ * 作为主键插入时比UUIDv4有更好的索引局部性
+ * @version 1.0
+ * @since 1.0
+ */
+public class UuidV7Generator implements IdGenerator {
+    /**
+     * 是否以字符串形式返回，否则返回UUID对象
+     */
+    private final boolean asString;
+
+    public UuidV7Generator() {
+        this(true);
+    }
+
+    public UuidV7Generator(boolean asString) {
+        this.asString = asString;
+    }
+
+    @Override
+    public Object next(Class<?> tableClass) {
+        UUID uuid = nextUuid();
+        return asString ? uuid.toString() : uuid;
+    }
+
+    public static UUID nextUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = System.currentTimeMillis();
+        // 48位时间戳、4位版本号7、12位随机数
+        long most = (millis << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        // 2位变体10、62位随机数
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+}
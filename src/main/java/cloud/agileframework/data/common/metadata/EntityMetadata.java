@@ -0,0 +1,89 @@
+package cloud.agileframework.data.common.metadata;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/01 9:20
+ * 描述 编译期生成的实体元数据与属性访问器，由EntityMetadataProcessor为实体生成实现类，
+ * 运行时通过EntityMetadataRegistry获取，不存在时退化为反射
+ * @version 1.0
+ * @since 1.0
+ */
+public interface EntityMetadata {
+    /**
+     * 实体类型
+     *
+     * @return 实体类型
+     */
+    Class<?> entityClass();
+
+    /**
+     * 表名，取自@Table注解
+     *
+     * @return 表名，未声明时返回null
+     */
+    String tableName();
+
+    /**
+     * 主键属性名
+     *
+     * @return 主键属性名，未声明@Id时返回null
+     */
+    String idProperty();
+
+    /**
+     * 全部属性名，包括父类属性
+     *
+     * @return 属性名数组
+     */
+    String[] properties();
+
+    /**
+     * 属性下标
+     *
+     * @param property 属性名
+     * @return 下标，不存在时返回-1
+     */
+    int indexOf(String property);
+
+    /**
+     * 属性是否标注了Transient或声明为transient
+     *
+     * @param index 属性下标
+     * @return 是否瞬态
+     */
+    boolean isTransient(int index);
+
+    /**
+     * 属性是否可以不经反射读取
+     *
+     * @param index 属性下标
+     * @return 是否可读
+     */
+    boolean isReadable(int index);
+
+    /**
+     * 属性是否可以不经反射写入
+     *
+     * @param index 属性下标
+     * @return 是否可写
+     */
+    boolean isWritable(int index);
+
+    /**
+     * 读取属性值
+     *
+     * @param entity 实体
+     * @param index  属性下标
+     * @return 属性值
+     */
+    Object get(Object entity, int index);
+
+    /**
+     * 写入属性值
+     *
+     * @param entity 实体
+     * @param index  属性下标
+     * @param value  属性值，类型需与属性一致
+     */
+    void set(Object entity, int index, Object value);
+}
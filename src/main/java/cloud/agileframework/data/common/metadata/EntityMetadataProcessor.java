@@ -0,0 +1,335 @@
+package cloud.agileframework.data.common.metadata;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/01 10:30
+ * 描述 实体元数据注解处理器，在编译期为标注@Entity或@Table的实体生成EntityMetadata实现，
+ * 包含表名、主键、瞬态属性以及不经反射的属性读写器。
+ * 处理器以processor分类器单独发布，运行时jar不注册处理器，需要时在maven-compiler-plugin中声明：
+ * <pre>
+ * &lt;annotationProcessorPaths&gt;
+ *     &lt;path&gt;
+ *         &lt;groupId&gt;cloud.agileframework&lt;/groupId&gt;
+ *         &lt;artifactId&gt;agile-data-common&lt;/artifactId&gt;
+ *         &lt;version&gt;${agile.version}&lt;/version&gt;
+ *         &lt;classifier&gt;processor&lt;/classifier&gt;
+ *     &lt;/path&gt;
+ * &lt;/annotationProcessorPaths&gt;
+ * </pre>
+ * 注意声明annotationProcessorPaths后编译器不再扫描classpath上的处理器，其他处理器（如lombok）需一并声明。
+ * 编译参数-Aagile.metadata.disabled=true可临时关闭
+ * @version 1.0
+ * @since 1.0
+ */
+@SupportedOptions(EntityMetadataProcessor.DISABLED_OPTION)
+public class EntityMetadataProcessor extends AbstractProcessor {
+    static final String DISABLED_OPTION = "agile.metadata.disabled";
+
+    private static final List<String> ENTITY_ANNOTATIONS = Arrays.asList(
+            "javax.persistence.Entity",
+            "jakarta.persistence.Entity",
+            "org.springframework.data.relational.core.mapping.Table");
+
+    private static final List<String> TABLE_ANNOTATIONS = Arrays.asList(
+            "javax.persistence.Table",
+            "jakarta.persistence.Table",
+            "org.springframework.data.relational.core.mapping.Table");
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new LinkedHashSet<>(ENTITY_ANNOTATIONS);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (Boolean.parseBoolean(processingEnv.getOptions().get(DISABLED_OPTION))) {
+            return false;
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS || !isAccessible((TypeElement) element)) {
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                if (generated.add(type.getQualifiedName().toString())) {
+                    generate(type);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String className = flatName(type) + EntityMetadataRegistry.SUFFIX;
+        String entityName = type.getQualifiedName().toString();
+        List<Property> properties = new ArrayList<>(properties(type, packageName).values());
+
+        StringBuilder source = new StringBuilder(4096);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * 由").append(getClass().getName()).append("生成，请勿修改\n */\n");
+        source.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        source.append("public final class ").append(className)
+                .append(" implements ").append(EntityMetadata.class.getName()).append(" {\n");
+
+        source.append("    private static final String[] PROPERTIES = {");
+        appendJoined(source, properties, p -> literal(p.name));
+        source.append("};\n");
+        source.append("    private static final boolean[] TRANSIENT = {");
+        appendJoined(source, properties, p -> String.valueOf(p.transientProperty));
+        source.append("};\n");
+        source.append("    private static final boolean[] READABLE = {");
+        appendJoined(source, properties, p -> String.valueOf(p.read != null));
+        source.append("};\n");
+        source.append("    private static final boolean[] WRITABLE = {");
+        appendJoined(source, properties, p -> String.valueOf(p.write != null));
+        source.append("};\n\n");
+
+        source.append("    @Override\n    public Class<?> entityClass() {\n        return ").append(entityName).append(".class;\n    }\n\n");
+        String tableName = tableName(type);
+        source.append("    @Override\n    public String tableName() {\n        return ").append(tableName == null ? "null" : literal(tableName)).append(";\n    }\n\n");
+        String idProperty = properties.stream().filter(p -> p.id).map(p -> p.name).findFirst().orElse(null);
+        source.append("    @Override\n    public String idProperty() {\n        return ").append(idProperty == null ? "null" : literal(idProperty)).append(";\n    }\n\n");
+        source.append("    @Override\n    public String[] properties() {\n        return PROPERTIES.clone();\n    }\n\n");
+
+        source.append("    @Override\n    public int indexOf(String property) {\n        switch (property) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            source.append("            case ").append(literal(properties.get(i).name)).append(":\n                return ").append(i).append(";\n");
+        }
+        source.append("            default:\n                return -1;\n        }\n    }\n\n");
+
+        source.append("    @Override\n    public boolean isTransient(int index) {\n        return TRANSIENT[index];\n    }\n\n");
+        source.append("    @Override\n    public boolean isReadable(int index) {\n        return READABLE[index];\n    }\n\n");
+        source.append("    @Override\n    public boolean isWritable(int index) {\n        return WRITABLE[index];\n    }\n\n");
+
+        source.append("    @Override\n    public Object get(Object entity, int index) {\n");
+        source.append("        ").append(entityName).append(" e = (").append(entityName).append(") entity;\n");
+        source.append("        switch (index) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            Property p = properties.get(i);
+            if (p.read != null) {
+                source.append("            case ").append(i).append(":\n                return e.").append(p.read).append(";\n");
+            }
+        }
+        source.append("            default:\n                throw new IllegalArgumentException(\"Property \" + index + \" is not readable\");\n        }\n    }\n\n");
+
+        source.append("    @Override\n    public void set(Object entity, int index, Object value) {\n");
+        source.append("        ").append(entityName).append(" e = (").append(entityName).append(") entity;\n");
+        source.append("        switch (index) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            Property p = properties.get(i);
+            if (p.write != null) {
+                source.append("            case ").append(i).append(":\n                e.")
+                        .append(String.format(p.write, "(" + p.boxedType + ") value")).append(";\n                return;\n");
+            }
+        }
+        source.append("            default:\n                throw new IllegalArgumentException(\"Property \" + index + \" is not writable\");\n        }\n    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Failed to generate " + qualifiedName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private Map<String, Property> properties(TypeElement type, String packageName) {
+        Map<String, Property> properties = new LinkedHashMap<>();
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                String name = field.getSimpleName().toString();
+                if (modifiers.contains(Modifier.STATIC) || properties.containsKey(name)) {
+                    continue;
+                }
+                Property property = new Property();
+                property.name = name;
+                TypeMirror fieldType = field.asType();
+                property.boxedType = boxedType(fieldType);
+
+                ExecutableElement getter = getter(methods, name, fieldType);
+                ExecutableElement setter = setter(methods, name, fieldType);
+                property.transientProperty = modifiers.contains(Modifier.TRANSIENT)
+                        || hasAnnotation(field, "Transient") || (getter != null && hasAnnotation(getter, "Transient"));
+                property.id = hasAnnotation(field, "Id") || (getter != null && hasAnnotation(getter, "Id"));
+
+                boolean fieldAccessible = modifiers.contains(Modifier.PUBLIC)
+                        || (!modifiers.contains(Modifier.PRIVATE)
+                        && processingEnv.getElementUtils().getPackageOf(current).getQualifiedName().contentEquals(packageName));
+                if (getter != null) {
+                    property.read = getter.getSimpleName() + "()";
+                } else if (fieldAccessible) {
+                    property.read = name;
+                }
+                if (setter != null) {
+                    property.write = setter.getSimpleName() + "(%s)";
+                } else if (fieldAccessible && !modifiers.contains(Modifier.FINAL)) {
+                    property.write = name + " = %s";
+                }
+                properties.put(name, property);
+            }
+        }
+        return properties;
+    }
+
+    private ExecutableElement getter(List<ExecutableElement> methods, String property, TypeMirror type) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            if ((name.equals("get" + suffix) || name.equals("is" + suffix))
+                    && method.getParameters().isEmpty()
+                    && isPublicInstance(method)
+                    && processingEnv.getTypeUtils().isSameType(
+                    processingEnv.getTypeUtils().erasure(method.getReturnType()),
+                    processingEnv.getTypeUtils().erasure(type))) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private ExecutableElement setter(List<ExecutableElement> methods, String property, TypeMirror type) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name)
+                    && method.getParameters().size() == 1
+                    && isPublicInstance(method)
+                    && processingEnv.getTypeUtils().isSameType(
+                    processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType()),
+                    processingEnv.getTypeUtils().erasure(type))) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private String tableName(TypeElement type) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (!TABLE_ANNOTATIONS.contains(mirror.getAnnotationType().toString())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                Object value = entry.getValue().getValue();
+                if (("name".equals(key) || "value".equals(key)) && value instanceof String && !((String) value).isEmpty()) {
+                    return (String) value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        if (element.getQualifiedName().contentEquals(Object.class.getName())) {
+            return null;
+        }
+        return element;
+    }
+
+    private String boxedType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            Set<Modifier> modifiers = e.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (e.getEnclosingElement() instanceof TypeElement && !modifiers.contains(Modifier.STATIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String flatName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            name.insert(0, e.getSimpleName() + "_");
+        }
+        return name.toString();
+    }
+
+    private static boolean hasAnnotation(Element element, String simpleName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().asElement().getSimpleName().contentEquals(simpleName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPublicInstance(ExecutableElement method) {
+        return method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void appendJoined(StringBuilder source, List<Property> properties, Function<Property, String> mapper) {
+        for (int i = 0; i < properties.size(); i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append(mapper.apply(properties.get(i)));
+        }
+    }
+
+    private static class Property {
+        private String name;
+        private String boxedType;
+        private boolean transientProperty;
+        private boolean id;
+        private String read;
+        private String write;
+    }
+}
@@ -0,0 +1,66 @@
+package cloud.agileframework.data.common.metadata;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author 佟盟
+ * 日期 2021/03/01 9:45
+ * 描述 编译期生成的实体元数据查找，生成类与实体同包，类名为实体类名（内部类以_连接）加_AgileMetadata后缀
+ * @version 1.0
+ * @since 1.0
+ */
+public final class EntityMetadataRegistry {
+    public static final String SUFFIX = "_AgileMetadata";
+
+    private static final Map<Class<?>, Optional<EntityMetadata>> CACHE = new ConcurrentHashMap<>();
+
+    private EntityMetadataRegistry() {
+    }
+
+    /**
+     * 取实体的生成元数据
+     *
+     * @param clazz 实体类型
+     * @return 元数据，未生成时返回null
+     */
+    public static EntityMetadata find(Class<?> clazz) {
+        return CACHE.computeIfAbsent(clazz, EntityMetadataRegistry::load).orElse(null);
+    }
+
+    /**
+     * 手动注册元数据，用于无法通过类名约定加载的场景
+     *
+     * @param metadata 元数据
+     */
+    public static void register(EntityMetadata metadata) {
+        CACHE.put(metadata.entityClass(), Optional.of(metadata));
+    }
+
+    /**
+     * 生成类的全限定名
+     *
+     * @param clazz 实体类型
+     * @return 生成类的全限定名
+     */
+    public static String metadataClassName(Class<?> clazz) {
+        String name = clazz.getName();
+        int dot = name.lastIndexOf('.');
+        String packageName = dot < 0 ? "" : name.substring(0, dot + 1);
+        return packageName + name.substring(dot + 1).replace('$', '_') + SUFFIX;
+    }
+
+    private static Optional<EntityMetadata> load(Class<?> clazz) {
+        ClassLoader classLoader = clazz.getClassLoader() == null ? EntityMetadataRegistry.class.getClassLoader() : clazz.getClassLoader();
+        try {
+            Class<?> metadataClass = Class.forName(metadataClassName(clazz), true, classLoader);
+            if (!EntityMetadata.class.isAssignableFrom(metadataClass)) {
+                return Optional.empty();
+            }
+            return Optional.of((EntityMetadata) metadataClass.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+}
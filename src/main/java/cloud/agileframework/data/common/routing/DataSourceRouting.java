@@ -0,0 +1,136 @@
+package cloud.agileframework.data.common.routing;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.util.function.Supplier;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 17:02
+ * 描述 读写路由上下文，以线程为单位记录当前处于读操作还是写操作，以及最近一次写操作的时间，
+ * 供ReadWriteRoutingDataSource选择主库或从库
+ * @version 1.0
+ * @since 1.0
+ */
+public final class DataSourceRouting {
+    private static final boolean TRANSACTION_PRESENT = ClassUtils.isPresent(
+            "org.springframework.transaction.support.TransactionSynchronizationManager", DataSourceRouting.class.getClassLoader());
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * 以读操作身份执行
+     *
+     * @param supplier 读操作
+     * @param <T>      返回类型
+     * @return 读操作结果
+     */
+    public static <T> T read(Supplier<T> supplier) {
+        State state = STATE.get();
+        state.readDepth++;
+        try {
+            return supplier.get();
+        } finally {
+            state.readDepth--;
+        }
+    }
+
+    /**
+     * 以写操作身份执行，执行期间以及结束后的粘滞窗口内，读操作均路由到主库
+     *
+     * @param supplier 写操作
+     * @param <T>      返回类型
+     * @return 写操作结果
+     */
+    public static <T> T write(Supplier<T> supplier) {
+        State state = STATE.get();
+        state.writeDepth++;
+        try {
+            return supplier.get();
+        } finally {
+            state.writeDepth--;
+            state.lastWriteAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 强制走主库执行
+     *
+     * @param supplier 操作
+     * @param <T>      返回类型
+     * @return 操作结果
+     */
+    public static <T> T primary(Supplier<T> supplier) {
+        return write(supplier);
+    }
+
+    /**
+     * 进入读操作，需与exitRead成对调用
+     */
+    public static void enterRead() {
+        STATE.get().readDepth++;
+    }
+
+    public static void exitRead() {
+        STATE.get().readDepth--;
+    }
+
+    /**
+     * 进入写操作，需与exitWrite成对调用
+     */
+    public static void enterWrite() {
+        STATE.get().writeDepth++;
+    }
+
+    public static void exitWrite() {
+        State state = STATE.get();
+        state.writeDepth--;
+        state.lastWriteAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 判断当前线程是否可以路由到从库：处于读操作或只读事务中、不在写操作或写事务中、且距离上次写操作超过粘滞窗口
+     *
+     * @param stickyMillis 写后读主库的粘滞窗口，毫秒
+     * @return 是否可以走从库
+     */
+    public static boolean isReplicaAllowed(long stickyMillis) {
+        State state = STATE.get();
+        if (state.writeDepth > 0 || (state.readDepth <= 0 && !inReadOnlyTransaction())) {
+            return false;
+        }
+        if (stickyMillis > 0 && System.currentTimeMillis() - state.lastWriteAt < stickyMillis) {
+            return false;
+        }
+        return !inWriteTransaction();
+    }
+
+    /**
+     * 清理当前线程的路由状态
+     */
+    public static void clear() {
+        STATE.remove();
+    }
+
+    private static boolean inReadOnlyTransaction() {
+        return TRANSACTION_PRESENT
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static boolean inWriteTransaction() {
+        return TRANSACTION_PRESENT
+                && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static class State {
+        private int readDepth;
+        private int writeDepth;
+        private long lastWriteAt;
+    }
+}
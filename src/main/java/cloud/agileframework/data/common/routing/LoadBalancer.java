@@ -0,0 +1,41 @@
+package cloud.agileframework.data.common.routing;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 17:20
+ * 描述 从库负载均衡策略
+ * @version 1.0
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface LoadBalancer {
+    /**
+     * 从从库列表中选择一个数据源
+     *
+     * @param replicas 从库列表，不为空
+     * @return 选中的数据源
+     */
+    DataSource choose(List<DataSource> replicas);
+
+    /**
+     * 轮询
+     *
+     * @return 轮询策略
+     */
+    static LoadBalancer roundRobin() {
+        return new RoundRobinLoadBalancer();
+    }
+
+    /**
+     * 随机
+     *
+     * @return 随机策略
+     */
+    static LoadBalancer random() {
+        return replicas -> replicas.get(ThreadLocalRandom.current().nextInt(replicas.size()));
+    }
+}
@@ -0,0 +1,43 @@
+package cloud.agileframework.data.common.routing;
+
+import cloud.agileframework.data.common.dao.OperationType;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 18:10
+ * 描述 按BaseDao方法的操作类型设置读写路由上下文
+ * @version 1.0
+ * @since 1.0
+ */
+@Aspect
+public class ReadWriteRoutingAspect {
+
+    @Around("execution(* cloud.agileframework.data.common.dao.BaseDao+.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        OperationType type = OperationType.of(method);
+        if (type == OperationType.NONE) {
+            return joinPoint.proceed();
+        }
+        if (OperationType.isReadOnly(method)) {
+            DataSourceRouting.enterRead();
+            try {
+                return joinPoint.proceed();
+            } finally {
+                DataSourceRouting.exitRead();
+            }
+        }
+        DataSourceRouting.enterWrite();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRouting.exitWrite();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cloud.agileframework.data.common.routing;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 17:35
+ * 描述 读写分离数据源，写操作与写事务走主库，读操作按负载均衡策略走从库，
+ * 写操作后的粘滞窗口内读操作仍走主库，保证读到自己的写入。
+ * 路由在获取连接时进行，事务管理器在事务开启时即获取连接，与事务管理器配合使用时需通过lazy()包装
+ * @version 1.0
+ * @since 1.0
+ */
+public class ReadWriteRoutingDataSource implements DataSource {
+    /**
+     * 默认的写后读主库粘滞窗口，毫秒
+     */
+    public static final long DEFAULT_STICKY_MILLIS = 1000;
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final LoadBalancer loadBalancer;
+    private final long stickyMillis;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this(primary, replicas, LoadBalancer.roundRobin(), DEFAULT_STICKY_MILLIS);
+    }
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, LoadBalancer loadBalancer, long stickyMillis) {
+        if (primary == null) {
+            throw new IllegalArgumentException("Primary data source is required");
+        }
+        this.primary = primary;
+        this.replicas = replicas == null ? new ArrayList<>(0) : new ArrayList<>(replicas);
+        this.loadBalancer = loadBalancer == null ? LoadBalancer.roundRobin() : loadBalancer;
+        this.stickyMillis = stickyMillis;
+    }
+
+    /**
+     * 按当前线程的路由状态选择数据源
+     *
+     * @return 主库或某个从库
+     */
+    public DataSource determineTargetDataSource() {
+        if (replicas.isEmpty() || !DataSourceRouting.isReplicaAllowed(stickyMillis)) {
+            return primary;
+        }
+        return loadBalancer.choose(replicas);
+    }
+
+    /**
+     * 包装为延迟获取连接的数据源，事务开启时不获取连接，第一条语句执行时才按路由状态选择数据源
+     *
+     * @return 延迟连接代理
+     */
+    public DataSource lazy() {
+        return new LazyConnectionDataSourceProxy(this);
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return determineTargetDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTargetDataSource().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,22 @@
+package cloud.agileframework.data.common.routing;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author 佟盟
+ * 日期 2021/01/25 17:24
+ * 描述 轮询负载均衡
+ * @version 1.0
+ * @since 1.0
+ */
+public class RoundRobinLoadBalancer implements LoadBalancer {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public DataSource choose(List<DataSource> replicas) {
+        int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+        return replicas.get(index);
+    }
+}
@@ -0,0 +1,48 @@
+package cloud.agileframework.data.common.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/01 10:40
+ * 描述 分片上下文，记录当前线程正在访问的分片，供ShardingDataSource选择数据源
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * 在指定分片上执行
+     *
+     * @param shard    分片下标
+     * @param supplier 操作
+     * @param <T>      返回类型
+     * @return 操作结果
+     */
+    public static <T> T on(int shard, Supplier<T> supplier) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前分片
+     *
+     * @return 分片下标，不在分片操作中时返回null
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+}
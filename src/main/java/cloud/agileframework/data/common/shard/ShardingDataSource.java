@@ -0,0 +1,111 @@
+package cloud.agileframework.data.common.shard;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/01 10:52
+ * 描述 分片数据源，按ShardContext中的分片下标对数据源个数取模选择数据源，
+ * 不在分片操作中时使用第一个数据源。
+ * 与事务管理器配合使用时需通过lazy()包装，使连接在第一条语句执行时按分片选择；
+ * 事务内的连接一经获取即固定，同一事务不能跨数据源写入多个分片
+ * @version 1.0
+ * @since 1.0
+ */
+public class ShardingDataSource implements DataSource {
+    private final List<DataSource> dataSources;
+
+    public ShardingDataSource(List<DataSource> dataSources) {
+        if (dataSources == null || dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one data source is required");
+        }
+        this.dataSources = new ArrayList<>(dataSources);
+    }
+
+    /**
+     * 按当前分片选择数据源
+     *
+     * @return 数据源
+     */
+    public DataSource determineTargetDataSource() {
+        Integer shard = ShardContext.current();
+        if (shard == null) {
+            return dataSources.get(0);
+        }
+        return dataSources.get(shard % dataSources.size());
+    }
+
+    /**
+     * 包装为延迟获取连接的数据源，事务开启时不获取连接，第一条语句执行时才按当前分片选择数据源
+     *
+     * @return 延迟连接代理
+     */
+    public DataSource lazy() {
+        return new LazyConnectionDataSourceProxy(this);
+    }
+
+    public List<DataSource> getDataSources() {
+        return dataSources;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return determineTargetDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineTargetDataSource().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSources.get(0).getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (DataSource dataSource : dataSources) {
+            dataSource.setLogWriter(out);
+        }
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (DataSource dataSource : dataSources) {
+            dataSource.setLoginTimeout(seconds);
+        }
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSources.get(0).getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSources.get(0).getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSources.get(0).unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSources.get(0).isWrapperFor(iface);
+    }
+}
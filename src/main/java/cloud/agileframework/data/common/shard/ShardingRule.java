@@ -0,0 +1,135 @@
+package cloud.agileframework.data.common.shard;
+
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLStatement;
+import com.alibaba.druid.sql.ast.statement.SQLExprTableSource;
+import com.alibaba.druid.sql.visitor.SQLASTVisitorAdapter;
+
+import java.util.List;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/01 10:15
+ * 描述 水平分表规则，按分片键字段的值将逻辑表路由到shardCount个物理表，
+ * 物理表名由tableNamePattern生成，{table}替换为逻辑表名，{index}替换为分片下标
+ * @version 1.0
+ * @since 1.0
+ */
+public class ShardingRule {
+    /**
+     * 分片键，字段名或属性名
+     */
+    private final String shardKey;
+    /**
+     * 分片个数
+     */
+    private final int shardCount;
+    /**
+     * 物理表名模板，为空时物理表名与逻辑表名一致，仅按数据源分片
+     */
+    private final String tableNamePattern;
+    /**
+     * 分片算法，入参为分片键的值与分片个数，返回分片下标
+     */
+    private final ToIntBiFunction<Object, Integer> algorithm;
+
+    public ShardingRule(String shardKey, int shardCount, String tableNamePattern) {
+        this(shardKey, shardCount, tableNamePattern, ShardingRule::hash);
+    }
+
+    public ShardingRule(String shardKey, int shardCount, String tableNamePattern, ToIntBiFunction<Object, Integer> algorithm) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.shardKey = shardKey;
+        this.shardCount = shardCount;
+        this.tableNamePattern = tableNamePattern;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * 默认分片算法，整数取模，其他类型按hashCode取模
+     *
+     * @param value      分片键的值
+     * @param shardCount 分片个数
+     * @return 分片下标
+     */
+    public static int hash(Object value, Integer shardCount) {
+        if (value == null) {
+            throw new IllegalArgumentException("Shard key value is required");
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return (int) Math.floorMod(((Number) value).longValue(), (long) shardCount);
+        }
+        return Math.floorMod(value.hashCode(), shardCount);
+    }
+
+    /**
+     * 计算分片键的值所在分片
+     *
+     * @param value 分片键的值
+     * @return 分片下标
+     */
+    public int shardOf(Object value) {
+        return algorithm.applyAsInt(value, shardCount);
+    }
+
+    /**
+     * 取分片的物理表名
+     *
+     * @param logicTable 逻辑表名
+     * @param shard      分片下标
+     * @return 物理表名
+     */
+    public String tableName(String logicTable, int shard) {
+        if (tableNamePattern == null) {
+            return logicTable;
+        }
+        return tableNamePattern.replace("{table}", logicTable).replace("{index}", String.valueOf(shard));
+    }
+
+    /**
+     * 将逻辑sql中的逻辑表替换为分片的物理表
+     *
+     * @param sql        逻辑sql
+     * @param logicTable 逻辑表名
+     * @param shard      分片下标
+     * @param dbType     数据库类型
+     * @return 物理sql
+     */
+    public String rewrite(String sql, String logicTable, int shard, DbType dbType) {
+        String physicalTable = tableName(logicTable, shard);
+        if (physicalTable.equals(logicTable)) {
+            return sql;
+        }
+        List<SQLStatement> statements = SQLUtils.parseStatements(sql, dbType);
+        StringBuilder result = new StringBuilder();
+        for (SQLStatement statement : statements) {
+            statement.accept(new SQLASTVisitorAdapter() {
+                @Override
+                public boolean visit(SQLExprTableSource x) {
+                    if (logicTable.equalsIgnoreCase(x.getTableName())) {
+                        x.setExpr(physicalTable);
+                    }
+                    return true;
+                }
+            });
+            result.append(SQLUtils.toSQLString(statement, dbType));
+        }
+        return result.toString();
+    }
+
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public String getTableNamePattern() {
+        return tableNamePattern;
+    }
+}
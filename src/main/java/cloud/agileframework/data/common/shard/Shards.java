@@ -0,0 +1,251 @@
+package cloud.agileframework.data.common.shard;
+
+import cloud.agileframework.common.util.object.ObjectUtil;
+import cloud.agileframework.data.common.dao.AggregateSpec;
+import cloud.agileframework.data.common.dao.ColumnName;
+import cloud.agileframework.data.common.dao.RowSet;
+import cloud.agileframework.data.common.timeout.Deadline;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * @author 佟盟
+ * 日期 2021/02/01 11:20
+ * 描述 分片的分发与归并工具
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Shards {
+    private static final boolean TRANSACTION_PRESENT = ClassUtils.isPresent(
+            "org.springframework.transaction.support.TransactionSynchronizationManager", Shards.class.getClassLoader());
+
+    private Shards() {
+    }
+
+    /**
+     * 在全部分片上执行操作，executor为空时按分片顺序执行，否则并发执行；
+     * 顺序执行时当前线程不能处于事务中或绑定了连接，否则各分片的操作都会落在已绑定的连接上
+     *
+     * @param shardCount 分片个数
+     * @param executor   执行器
+     * @param task       分片操作，入参为分片下标
+     * @param <R>        返回类型
+     * @return 按分片下标排列的结果
+     */
+    public static <R> List<R> scatter(int shardCount, Executor executor, IntFunction<R> task) {
+        List<R> result = new ArrayList<>(shardCount);
+        if (executor == null || shardCount == 1) {
+            if (shardCount > 1 && isConnectionBound()) {
+                throw new IllegalStateException("Cannot scatter across shards sequentially while a transaction or connection is bound to the current thread");
+            }
+            for (int i = 0; i < shardCount; i++) {
+                final int shard = i;
+                result.add(ShardContext.on(shard, () -> task.apply(shard)));
+            }
+            return result;
+        }
+
+        // 分片任务在执行器线程中沿用调用方的截止时间
+        Deadline deadline = Deadline.current();
+        List<CompletableFuture<R>> futures = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            final int shard = i;
+            futures.add(CompletableFuture.supplyAsync(() -> Deadline.bind(deadline,
+                    () -> ShardContext.on(shard, () -> task.apply(shard))), executor));
+        }
+        try {
+            for (CompletableFuture<R> future : futures) {
+                result.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * 当前线程是否处于事务中，或绑定了连接、会话等事务资源
+     */
+    private static boolean isConnectionBound() {
+        if (!TRANSACTION_PRESENT) {
+            return false;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return true;
+        }
+        return TransactionSynchronizationManager.getResourceMap().values().stream()
+                .anyMatch(resource -> resource instanceof ResourceHolderSupport);
+    }
+
+    /**
+     * 多路归并各分片已排序的结果
+     *
+     * @param shardResults 各分片已按comparator排序的结果
+     * @param comparator   排序规则，为空时按分片顺序拼接
+     * @param skip         跳过的条数
+     * @param limit        最多返回的条数，小于0时不限制
+     * @param <T>          元素类型
+     * @return 归并后的结果
+     */
+    public static <T> List<T> merge(List<List<T>> shardResults, Comparator<T> comparator, long skip, int limit) {
+        List<T> result = new ArrayList<>(limit < 0 ? 16 : limit);
+        if (comparator == null) {
+            long skipped = 0;
+            for (List<T> list : shardResults) {
+                for (T e : list) {
+                    if (skipped++ < skip) {
+                        continue;
+                    }
+                    if (limit >= 0 && result.size() >= limit) {
+                        return result;
+                    }
+                    result.add(e);
+                }
+            }
+            return result;
+        }
+
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, shardResults.size()),
+                (a, b) -> comparator.compare(shardResults.get(a[0]).get(a[1]), shardResults.get(b[0]).get(b[1])));
+        for (int i = 0; i < shardResults.size(); i++) {
+            if (!shardResults.get(i).isEmpty()) {
+                heap.add(new int[]{i, 0});
+            }
+        }
+        long skipped = 0;
+        while (!heap.isEmpty() && (limit < 0 || result.size() < limit)) {
+            int[] head = heap.poll();
+            List<T> list = shardResults.get(head[0]);
+            if (skipped++ >= skip) {
+                result.add(list.get(head[1]));
+            }
+            if (head[1] + 1 < list.size()) {
+                heap.add(new int[]{head[0], head[1] + 1});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 根据排序信息生成实体比较器，空值排在最前，与mysql升序规则一致
+     *
+     * @param sort    排序信息
+     * @param columns 实体字段
+     * @param <T>     实体类型
+     * @return 比较器，未排序时返回null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Comparator<T> comparator(Sort sort, List<ColumnName> columns) {
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            ColumnName column = columns.stream().filter(c -> c.matches(order.getProperty()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown sort column " + order.getProperty()));
+            Function<T, Comparable> key = o -> (Comparable) valueOf(o, column.getMember());
+            Comparator<T> next = Comparator.comparing(key, Comparator.nullsFirst(Comparator.<Comparable>naturalOrder()));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    /**
+     * 归并各分片不分组的count、sum、min、max结果，avg与分组聚合不能由分片结果直接归并
+     *
+     * @param shardResults 各分片的单行聚合结果
+     * @param spec         聚合描述
+     * @return 单行聚合结果
+     */
+    public static RowSet aggregate(List<RowSet> shardResults, AggregateSpec spec) {
+        if (!spec.getGroupBy().isEmpty()) {
+            throw new UnsupportedOperationException("Grouped aggregates cannot be merged across shards");
+        }
+        List<AggregateSpec.Item> items = spec.getItems();
+        String[] names = new String[items.size()];
+        Object[] values = new Object[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            AggregateSpec.Item item = items.get(i);
+            names[i] = item.getAlias();
+            Object merged = null;
+            for (RowSet rowSet : shardResults) {
+                if (rowSet.size() > 0) {
+                    merged = combine(item.getFunction(), merged, rowSet.getObject(0, rowSet.indexOf(item.getAlias())));
+                }
+            }
+            values[i] = merged == null && item.getFunction() == AggregateSpec.Function.COUNT ? 0L : merged;
+        }
+        return RowSet.of(names, values);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object combine(AggregateSpec.Function function, Object merged, Object value) {
+        if (value == null) {
+            return merged;
+        }
+        if (merged == null) {
+            return function == AggregateSpec.Function.COUNT ? ((Number) value).longValue() : value;
+        }
+        switch (function) {
+            case COUNT:
+                return ((Number) merged).longValue() + ((Number) value).longValue();
+            case SUM:
+                return add((Number) merged, (Number) value);
+            case MIN:
+                return ((Comparable) merged).compareTo(value) <= 0 ? merged : value;
+            case MAX:
+                return ((Comparable) merged).compareTo(value) >= 0 ? merged : value;
+            default:
+                throw new UnsupportedOperationException(function + " cannot be merged across shards");
+        }
+    }
+
+    private static Number add(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return a.longValue() + b.longValue();
+        }
+        if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+            return a.doubleValue() + b.doubleValue();
+        }
+        return new BigDecimal(a.toString()).add(new BigDecimal(b.toString()));
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+    }
+
+    private static Object valueOf(Object o, Member member) {
+        if (member instanceof Field) {
+            return ObjectUtil.getFieldValue(o, (Field) member);
+        }
+        try {
+            Method method = (Method) member;
+            method.setAccessible(true);
+            return method.invoke(o);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
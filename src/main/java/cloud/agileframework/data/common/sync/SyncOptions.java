@@ -0,0 +1,59 @@
+package cloud.agileframework.data.common.sync;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/12 10:05
+ * 描述 整表同步参数
+ * @version 1.0
+ * @since 1.0
+ */
+public class SyncOptions {
+    /**
+     * 读取库中已有数据时每批读取的行数
+     */
+    private int readChunkSize = 5000;
+    /**
+     * jdbc批量写入时每批执行的语句数
+     */
+    private int batchSize = 1000;
+    /**
+     * 是否删除库中存在而传入集合中不存在的数据
+     */
+    private boolean deleteMissing = true;
+
+    public static SyncOptions of(boolean deleteMissing) {
+        SyncOptions options = new SyncOptions();
+        options.setDeleteMissing(deleteMissing);
+        return options;
+    }
+
+    public int getReadChunkSize() {
+        return readChunkSize;
+    }
+
+    public void setReadChunkSize(int readChunkSize) {
+        if (readChunkSize <= 0) {
+            throw new IllegalArgumentException("Read chunk size must be positive");
+        }
+        this.readChunkSize = readChunkSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public boolean isDeleteMissing() {
+        return deleteMissing;
+    }
+
+    public void setDeleteMissing(boolean deleteMissing) {
+        this.deleteMissing = deleteMissing;
+    }
+}
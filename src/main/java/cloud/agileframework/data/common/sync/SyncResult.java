@@ -0,0 +1,69 @@
+package cloud.agileframework.data.common.sync;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/12 10:12
+ * 描述 整表同步结果
+ * @version 1.0
+ * @since 1.0
+ */
+public class SyncResult {
+    private long inserted;
+    private long updated;
+    private long deleted;
+    private long unchanged;
+    private final long startAt = System.currentTimeMillis();
+    private long endAt;
+
+    void addInserted(long n) {
+        inserted += n;
+    }
+
+    void addUpdated(long n) {
+        updated += n;
+    }
+
+    void addDeleted(long n) {
+        deleted += n;
+    }
+
+    void addUnchanged(long n) {
+        unchanged += n;
+    }
+
+    void finish() {
+        endAt = System.currentTimeMillis();
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * 内容一致、没有产生写操作的行数
+     */
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * 耗时，毫秒
+     */
+    public long getElapsedMillis() {
+        return (endAt == 0 ? System.currentTimeMillis() : endAt) - startAt;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncResult{inserted=" + inserted + ", updated=" + updated + ", deleted=" + deleted
+                + ", unchanged=" + unchanged + ", elapsedMillis=" + getElapsedMillis() + '}';
+    }
+}
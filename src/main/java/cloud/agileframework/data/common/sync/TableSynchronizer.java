@@ -0,0 +1,439 @@
+package cloud.agileframework.data.common.sync;
+
+import cloud.agileframework.data.common.dao.BaseDao;
+import cloud.agileframework.data.common.dao.ColumnName;
+import cloud.agileframework.data.common.dao.TableWrapper;
+import cloud.agileframework.data.common.metadata.EntityMetadata;
+import cloud.agileframework.data.common.metadata.EntityMetadataRegistry;
+import cloud.agileframework.data.common.timeout.Deadline;
+import com.alibaba.druid.DbType;
+import com.alibaba.druid.sql.PagerUtils;
+import com.alibaba.druid.sql.SQLUtils;
+import com.alibaba.druid.sql.ast.SQLOrderBy;
+import com.alibaba.druid.sql.ast.SQLOrderingSpecification;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOpExpr;
+import com.alibaba.druid.sql.ast.expr.SQLBinaryOperator;
+import com.alibaba.druid.sql.ast.expr.SQLVariantRefExpr;
+import com.alibaba.druid.sql.ast.statement.SQLDeleteStatement;
+import com.alibaba.druid.sql.ast.statement.SQLExprTableSource;
+import com.alibaba.druid.sql.ast.statement.SQLInsertStatement;
+import com.alibaba.druid.sql.ast.statement.SQLSelectItem;
+import com.alibaba.druid.sql.ast.statement.SQLSelectQueryBlock;
+import com.alibaba.druid.sql.ast.statement.SQLUpdateSetItem;
+import com.alibaba.druid.sql.ast.statement.SQLUpdateStatement;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/12 10:30
+ * 描述 整表同步，使库中数据与传入集合一致。
+ * 按主键分块读取库中已有数据，逐行计算字段值的64位哈希与传入数据比较，只对新增、变化、缺失的行
+ * 分别执行jdbc批量insert、update、delete，内容一致的行不产生写操作；读取时不创建实体
+ * @version 1.0
+ * @since 1.0
+ */
+public class TableSynchronizer<T> {
+    private static final HashFunction HASH = Hashing.murmur3_128();
+    private static final SQLVariantRefExpr PLACEHOLDER = new SQLVariantRefExpr("?");
+
+    private final BaseDao dao;
+    private final Class<T> tableClass;
+    private final SyncOptions options;
+    private final List<ColumnName> columns;
+    private final int idIndex;
+    private final String tableName;
+    /**
+     * 按字段顺序排列的枚举存储方式，非枚举字段为null
+     */
+    private final EnumMapping[] enumMappings;
+
+    public TableSynchronizer(BaseDao dao, Class<T> tableClass, SyncOptions options) throws NoSuchFieldException {
+        this.dao = dao;
+        this.tableClass = tableClass;
+        this.options = options == null ? new SyncOptions() : options;
+        this.tableName = dao.tableNameOf(tableClass);
+
+        EntityMetadata metadata = EntityMetadataRegistry.find(tableClass);
+        this.columns = dao.toColumnNames(tableClass).stream()
+                .filter(c -> !TableWrapper.isTransient(c, metadata))
+                .collect(Collectors.toList());
+        String idColumn = dao.toIdColumnName(tableClass);
+        int index = -1;
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).getName().equalsIgnoreCase(idColumn)) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("Primary key column " + idColumn + " is not mapped in " + tableClass.getName());
+        }
+        this.idIndex = index;
+
+        this.enumMappings = new EnumMapping[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            enumMappings[i] = EnumMapping.of(tableClass, columns.get(i));
+        }
+    }
+
+    /**
+     * 同步
+     *
+     * @param incoming 期望的全部数据，主键不能为空
+     * @return 同步结果
+     */
+    public SyncResult sync(Collection<T> incoming) throws NoSuchFieldException {
+        SyncResult result = new SyncResult();
+        Map<Object, Object[]> pending = new LinkedHashMap<>(Math.max(16, incoming.size() * 4 / 3 + 1));
+        for (T entity : incoming) {
+            Object[] values = toColumnValues(new TableWrapper<>(entity, dao::toColumnNames, dao::tableNameOf).getValues());
+            if (values[idIndex] == null) {
+                throw new IllegalArgumentException("Primary key is required for sync: " + entity);
+            }
+            pending.put(dao.toIdType(tableClass, values[idIndex]), values);
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        Object lastId = null;
+        while (true) {
+            Deadline.check();
+            List<Object> ids = new ArrayList<>();
+            List<Long> rowHashes = new ArrayList<>();
+            dao.queryBySQL(selectSql(lastId != null), resultSet -> {
+                while (resultSet.next()) {
+                    ids.add(resultSet.getObject(idIndex + 1));
+                    rowHashes.add(hash(resultSet));
+                }
+                return null;
+            }, lastId == null ? new Object[0] : new Object[]{lastId});
+
+            for (int i = 0; i < ids.size(); i++) {
+                Object id = dao.toIdType(tableClass, ids.get(i));
+                Object[] values = pending.remove(id);
+                if (values == null) {
+                    if (options.isDeleteMissing()) {
+                        deletes.add(new Object[]{ids.get(i)});
+                    }
+                } else if (hash(values) == rowHashes.get(i)) {
+                    result.addUnchanged(1);
+                } else {
+                    updates.add(values);
+                }
+            }
+            if (ids.size() < options.getReadChunkSize()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+
+        write(updates, deletes, new ArrayList<>(pending.values()), result);
+        result.finish();
+        return result;
+    }
+
+    /**
+     * 更新、删除、插入在同一连接上执行；连接处于外部事务中时随外部事务提交，
+     * 否则在本地事务中执行，任一步失败时整体回滚，不会留下只同步了一部分的表
+     */
+    private void write(List<Object[]> updates, List<Object[]> deletes, List<Object[]> inserts, SyncResult result) {
+        if (updates.isEmpty() && deletes.isEmpty() && inserts.isEmpty()) {
+            return;
+        }
+        Connection connection = dao.getConnection();
+        try {
+            boolean local = connection.getAutoCommit();
+            if (local) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                long updated = executeBatch(connection, updateSql(), updates, this::updateParameters);
+                long deleted = executeBatch(connection, deleteSql(), deletes, row -> row);
+                long inserted = executeBatch(connection, insertSql(), inserts, row -> row);
+                if (local) {
+                    connection.commit();
+                }
+                result.addUpdated(updated);
+                result.addDeleted(deleted);
+                result.addInserted(inserted);
+            } catch (SQLException | RuntimeException e) {
+                if (local) {
+                    rollbackQuietly(connection, e);
+                }
+                throw e;
+            } finally {
+                if (local) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            throw Deadline.translate(e);
+        } finally {
+            dao.releaseConnection(connection);
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection, Exception cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * 按主键升序分块读取的查询，after为true时从上一块的最大主键之后读取
+     */
+    private String selectSql(boolean after) {
+        String idColumn = columns.get(idIndex).getName();
+        SQLSelectQueryBlock query = new SQLSelectQueryBlock();
+        query.setFrom(new SQLExprTableSource(tableName));
+        columns.forEach(c -> query.addSelectItem(new SQLSelectItem(SQLUtils.toSQLExpr(c.getName()))));
+        if (after) {
+            query.setWhere(new SQLBinaryOpExpr(SQLUtils.toSQLExpr(idColumn), SQLBinaryOperator.GreaterThan, PLACEHOLDER.clone()));
+        }
+        query.addOrderBy(new SQLOrderBy(SQLUtils.toSQLExpr(idColumn), SQLOrderingSpecification.ASC));
+        return PagerUtils.limit(SQLUtils.toSQLString(query, DbType.mysql), DbType.mysql, 0, options.getReadChunkSize());
+    }
+
+    private String insertSql() {
+        SQLInsertStatement insert = new SQLInsertStatement();
+        insert.setTableSource(new SQLExprTableSource(tableName));
+        SQLInsertStatement.ValuesClause values = new SQLInsertStatement.ValuesClause();
+        for (ColumnName column : columns) {
+            insert.addColumn(SQLUtils.toSQLExpr(column.getName(), DbType.mysql));
+            values.addValue(PLACEHOLDER.clone());
+        }
+        insert.addValueCause(values);
+        return SQLUtils.toSQLString(insert, DbType.mysql);
+    }
+
+    private String updateSql() {
+        SQLUpdateStatement update = new SQLUpdateStatement();
+        update.setTableSource(new SQLExprTableSource(tableName));
+        for (int i = 0; i < columns.size(); i++) {
+            if (i == idIndex) {
+                continue;
+            }
+            SQLUpdateSetItem item = new SQLUpdateSetItem();
+            item.setColumn(SQLUtils.toSQLExpr(columns.get(i).getName(), DbType.mysql));
+            item.setValue(PLACEHOLDER.clone());
+            update.addItem(item);
+        }
+        update.setWhere(new SQLBinaryOpExpr(SQLUtils.toSQLExpr(columns.get(idIndex).getName()), SQLBinaryOperator.Equality, PLACEHOLDER.clone()));
+        return SQLUtils.toSQLString(update, DbType.mysql);
+    }
+
+    private String deleteSql() {
+        SQLDeleteStatement delete = new SQLDeleteStatement();
+        delete.setTableSource(new SQLExprTableSource(tableName));
+        delete.setWhere(new SQLBinaryOpExpr(SQLUtils.toSQLExpr(columns.get(idIndex).getName()), SQLBinaryOperator.Equality, PLACEHOLDER.clone()));
+        return SQLUtils.toSQLString(delete, DbType.mysql);
+    }
+
+    /**
+     * update参数顺序：非主键字段依次排列，最后为主键
+     */
+    private Object[] updateParameters(Object[] values) {
+        Object[] parameters = new Object[values.length];
+        int p = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i != idIndex) {
+                parameters[p++] = values[i];
+            }
+        }
+        parameters[p] = values[idIndex];
+        return parameters;
+    }
+
+    private long executeBatch(Connection connection, String sql, List<Object[]> rows, UnaryOperator<Object[]> toParameters) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            Deadline.apply(statement);
+            try {
+                int batched = 0;
+                for (Object[] row : rows) {
+                    Object[] parameters = toParameters.apply(row);
+                    for (int i = 0; i < parameters.length; i++) {
+                        statement.setObject(i + 1, parameters[i]);
+                    }
+                    statement.addBatch();
+                    if (++batched % options.getBatchSize() == 0) {
+                        executeBatch(statement);
+                    }
+                }
+                if (batched % options.getBatchSize() != 0) {
+                    executeBatch(statement);
+                }
+                return rows.size();
+            } finally {
+                Deadline.release(statement);
+            }
+        }
+    }
+
+    /**
+     * 每批执行前检查截止时间，并按剩余时间收紧语句超时，避免后续批次沿用创建语句时的超时
+     */
+    private static void executeBatch(PreparedStatement statement) throws SQLException {
+        Deadline.check();
+        Deadline.apply(statement);
+        statement.executeBatch();
+    }
+
+    private long hash(ResultSet resultSet) throws SQLException {
+        Hasher hasher = HASH.newHasher();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i != idIndex) {
+                put(hasher, resultSet.getObject(i + 1));
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    private long hash(Object[] values) {
+        Hasher hasher = HASH.newHasher();
+        for (int i = 0; i < values.length; i++) {
+            if (i != idIndex) {
+                put(hasher, values[i]);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    private static void put(Hasher hasher, Object value) {
+        String normalized = normalize(value);
+        if (normalized == null) {
+            hasher.putByte((byte) 0);
+        } else {
+            hasher.putByte((byte) 1).putInt(normalized.length()).putString(normalized, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 将实体属性值与jdbc读出的值统一为可比较的文本，消除Integer与Long、Date与Timestamp等类型差异
+     */
+    private static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        }
+        if (value instanceof Number) {
+            try {
+                BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+                return decimal.stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return value.toString();
+            }
+        }
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        if (value instanceof LocalDateTime) {
+            return String.valueOf(Timestamp.valueOf((LocalDateTime) value).getTime());
+        }
+        if (value instanceof LocalDate) {
+            return String.valueOf(java.sql.Date.valueOf((LocalDate) value).getTime());
+        }
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        return value.toString();
+    }
+
+    /**
+     * 将枚举属性值转换为库中存储的值，哈希比较与写入都使用转换后的值
+     */
+    private Object[] toColumnValues(Object[] values) {
+        Object[] result = values.clone();
+        for (int i = 0; i < result.length; i++) {
+            if (enumMappings[i] != null && result[i] != null) {
+                Enum<?> e = (Enum<?>) result[i];
+                result[i] = enumMappings[i] == EnumMapping.ORDINAL ? (Object) e.ordinal() : e.name();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 枚举字段的存储方式，与JPA一致：标注Enumerated(EnumType.STRING)时存储名称，未标注或ORDINAL时存储序号；
+     * 使用转换器或自定义类型的枚举字段无法确定存储值，不支持同步
+     */
+    private enum EnumMapping {
+        ORDINAL,
+        STRING;
+
+        static EnumMapping of(Class<?> tableClass, ColumnName column) {
+            Member member = column.getMember();
+            Class<?> type = member instanceof Field ? ((Field) member).getType()
+                    : member instanceof Method ? ((Method) member).getReturnType() : null;
+            if (type == null || !type.isEnum()) {
+                return null;
+            }
+            List<AnnotatedElement> elements = new ArrayList<>();
+            elements.add((AnnotatedElement) member);
+            if (!(member instanceof Field)) {
+                for (Class<?> c = member.getDeclaringClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+                    try {
+                        elements.add(c.getDeclaredField(column.getPropertyName()));
+                        break;
+                    } catch (NoSuchFieldException ignored) {
+                        // 继续查找父类
+                    }
+                }
+            }
+            EnumMapping mapping = ORDINAL;
+            for (AnnotatedElement element : elements) {
+                for (Annotation annotation : element.getAnnotations()) {
+                    String name = annotation.annotationType().getSimpleName();
+                    if ("Convert".equals(name) || "Type".equals(name)) {
+                        throw new IllegalArgumentException("Cannot determine the stored value of enum column "
+                                + column.getName() + " in " + tableClass.getName() + ", converted enums are not supported by sync");
+                    }
+                    if ("Enumerated".equals(name) && "STRING".equals(String.valueOf(attribute(annotation)))) {
+                        mapping = STRING;
+                    }
+                }
+            }
+            return mapping;
+        }
+
+        private static Object attribute(Annotation annotation) {
+            try {
+                return annotation.annotationType().getMethod("value").invoke(annotation);
+            } catch (ReflectiveOperationException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package cloud.agileframework.data.common.timeout;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/26 10:15
+ * 描述 查询截止时间，绑定在当前线程，期间执行的每条语句按剩余时间设置jdbc查询超时，
+ * 分页的数据与总数查询、分批写入、分块主键查询等多语句操作共享同一截止时间。
+ * 嵌套时取更早的截止时间；其他线程可通过cancel取消正在执行的语句。例如
+ * try (Deadline deadline = Deadline.open(3000)) { dao.page(...); }
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Deadline implements AutoCloseable {
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final Deadline parent;
+    private final boolean bounded;
+    private final long expiresAt;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    private Deadline(Deadline parent, boolean bounded, long expiresAt) {
+        this.parent = parent;
+        this.bounded = bounded;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 开启截止时间并绑定到当前线程，关闭后恢复外层截止时间
+     *
+     * @param timeoutMillis 超时时间，毫秒，小于等于0时不限时，仅用于取消
+     * @return 截止时间
+     */
+    public static Deadline open(long timeoutMillis) {
+        Deadline parent = CURRENT.get();
+        boolean bounded = timeoutMillis > 0;
+        long expiresAt = bounded ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis) : 0;
+        if (parent != null && parent.bounded && (!bounded || parent.expiresAt - expiresAt < 0)) {
+            bounded = true;
+            expiresAt = parent.expiresAt;
+        }
+        Deadline deadline = new Deadline(parent, bounded, expiresAt);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    /**
+     * 在截止时间内执行
+     *
+     * @param timeoutMillis 超时时间，毫秒
+     * @param supplier      操作
+     * @param <T>           返回类型
+     * @return 操作结果
+     */
+    public static <T> T within(long timeoutMillis, Supplier<T> supplier) {
+        try (Deadline ignored = open(timeoutMillis)) {
+            return supplier.get();
+        }
+    }
+
+    /**
+     * 在截止时间内执行，超时时间小于等于0时沿用当前截止时间，供切面使用
+     *
+     * @param timeoutMillis 超时时间，毫秒
+     * @param call          操作
+     * @param <T>           返回类型
+     * @return 操作结果
+     * @throws Throwable 操作异常
+     */
+    public static <T> T run(long timeoutMillis, Call<T> call) throws Throwable {
+        if (timeoutMillis <= 0) {
+            return call.call();
+        }
+        try (Deadline ignored = open(timeoutMillis)) {
+            return call.call();
+        }
+    }
+
+    /**
+     * 在其他线程中沿用指定的截止时间，用于并发分块查询等将操作拆分到线程池执行的场景
+     *
+     * @param deadline 调用方的截止时间，可为空
+     * @param supplier 操作
+     * @param <T>      返回类型
+     * @return 操作结果
+     */
+    public static <T> T bind(Deadline deadline, Supplier<T> supplier) {
+        if (deadline == null) {
+            return supplier.get();
+        }
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 当前线程的截止时间
+     *
+     * @return 截止时间，未设置时返回null
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 检查当前截止时间，用于多语句操作在语句之间提前结束
+     */
+    public static void check() {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.ensureActive();
+        }
+    }
+
+    /**
+     * 按当前截止时间设置语句的查询超时并登记，以便其他线程取消；执行完毕后需调用release。
+     * jdbc超时以秒为单位，剩余时间向上取整，语句已设置更短的超时时保持不变
+     *
+     * @param statement 即将执行的语句
+     * @throws SQLException 设置超时失败
+     */
+    public static void apply(Statement statement) throws SQLException {
+        Deadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return;
+        }
+        deadline.ensureActive();
+        if (deadline.bounded) {
+            long seconds = Math.max(1, (deadline.remainingMillis() + 999) / 1000);
+            int timeout = (int) Math.min(Integer.MAX_VALUE, seconds);
+            int existing = statement.getQueryTimeout();
+            if (existing == 0 || timeout < existing) {
+                statement.setQueryTimeout(timeout);
+            }
+        }
+        for (Deadline d = deadline; d != null; d = d.parent) {
+            d.statements.add(statement);
+        }
+        // 登记前已被取消时语句不会收到cancel
+        if (deadline.isCancelled()) {
+            release(statement);
+            deadline.ensureActive();
+        }
+    }
+
+    /**
+     * 注销apply登记的语句
+     *
+     * @param statement 已执行完毕的语句
+     */
+    public static void release(Statement statement) {
+        for (Deadline d = CURRENT.get(); d != null; d = d.parent) {
+            d.statements.remove(statement);
+        }
+    }
+
+    /**
+     * 将jdbc异常转换为运行时异常，超时或被取消时为DeadlineExceededException
+     *
+     * @param e jdbc异常
+     * @return 运行时异常
+     */
+    public static RuntimeException translate(SQLException e) {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null && deadline.isCancelled()) {
+            return new DeadlineExceededException(true, e);
+        }
+        if (isTimeout(e) || (deadline != null && deadline.isExpired())) {
+            return new DeadlineExceededException(false, e);
+        }
+        return new IllegalStateException(e);
+    }
+
+    /**
+     * 判断异常是否由查询超时或取消引起，兼容jpa与spring对超时异常的转换
+     *
+     * @param e 异常
+     * @return 是否超时
+     */
+    public static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlineExceededException || cause instanceof SQLTimeoutException
+                    || "QueryTimeoutException".equals(cause.getClass().getSimpleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 剩余毫秒数，不限时时为Long.MAX_VALUE
+     */
+    public long remainingMillis() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return bounded && expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @return 本截止时间或外层截止时间是否已被取消
+     */
+    public boolean isCancelled() {
+        for (Deadline d = this; d != null; d = d.parent) {
+            if (d.cancelled) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取消，可由其他线程调用；正在执行的语句被jdbc取消，之后的语句不再执行
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // 语句已结束
+            }
+        }
+    }
+
+    /**
+     * 恢复外层截止时间，只能在开启的线程中调用
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() != this) {
+            return;
+        }
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+
+    private void ensureActive() {
+        if (isCancelled()) {
+            throw new DeadlineExceededException(true, null);
+        }
+        if (isExpired()) {
+            throw new DeadlineExceededException(false, null);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Call<R> {
+        R call() throws Throwable;
+    }
+}
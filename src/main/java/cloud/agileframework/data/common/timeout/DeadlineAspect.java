@@ -0,0 +1,56 @@
+package cloud.agileframework.data.common.timeout;
+
+import cloud.agileframework.data.common.dao.OperationType;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/26 11:20
+ * 描述 按BaseDao方法的实体类型与操作类型施加默认截止时间，并统计超时；
+ * 调用方已通过Deadline设置更早的截止时间时以调用方为准
+ * @version 1.0
+ * @since 1.0
+ */
+@Aspect
+public class DeadlineAspect {
+    private final TimeoutResolver resolver;
+    private final QueryTimeoutMetrics metrics;
+
+    public DeadlineAspect(TimeoutResolver resolver, QueryTimeoutMetrics metrics) {
+        this.resolver = resolver;
+        this.metrics = metrics;
+    }
+
+    @Around("execution(* cloud.agileframework.data.common.dao.BaseDao+.*(..))")
+    public Object bound(ProceedingJoinPoint joinPoint) throws Throwable {
+        OperationType type = OperationType.of(((MethodSignature) joinPoint.getSignature()).getMethod());
+        if (type == OperationType.NONE) {
+            return joinPoint.proceed();
+        }
+        Class<?> entityClass = OperationType.entityClass(joinPoint.getArgs());
+        Long timeout = resolver.resolve(entityClass, type);
+        try {
+            return Deadline.run(timeout == null ? 0 : timeout, joinPoint::proceed);
+        } catch (Throwable e) {
+            if (Deadline.isTimeout(e)) {
+                metrics.record(entityClass, type);
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    public interface TimeoutResolver {
+        /**
+         * 取默认超时时间
+         *
+         * @param entityClass   实体类型，可为空
+         * @param operationType 操作类型
+         * @return 超时时间，毫秒，为空或小于等于0时不限时
+         */
+        Long resolve(Class<?> entityClass, OperationType operationType);
+    }
+}
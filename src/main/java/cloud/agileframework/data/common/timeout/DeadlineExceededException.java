@@ -0,0 +1,24 @@
+package cloud.agileframework.data.common.timeout;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/26 10:05
+ * 描述 查询超过截止时间或被取消
+ * @version 1.0
+ * @since 1.0
+ */
+public class DeadlineExceededException extends RuntimeException {
+    private final boolean cancelled;
+
+    public DeadlineExceededException(boolean cancelled, Throwable cause) {
+        super(cancelled ? "Query cancelled" : "Query deadline exceeded", cause);
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * @return 是否由cancel引起，否则为超时
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,55 @@
+package cloud.agileframework.data.common.timeout;
+
+import cloud.agileframework.data.common.dao.OperationType;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author 佟盟
+ * 日期 2021/04/26 11:02
+ * 描述 查询超时计数，按实体类型与操作类型统计超时或被取消的操作
+ * @version 1.0
+ * @since 1.0
+ */
+public class QueryTimeoutMetrics {
+    private static final String RAW_SQL = "<raw sql>";
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * 记录一次超时
+     *
+     * @param entityClass   实体类型，原生sql未指定实体时为null
+     * @param operationType 操作类型
+     */
+    public void record(Class<?> entityClass, OperationType operationType) {
+        counters.computeIfAbsent(key(entityClass, operationType), k -> new LongAdder()).increment();
+        total.increment();
+    }
+
+    public long count(Class<?> entityClass, OperationType operationType) {
+        LongAdder counter = counters.get(key(entityClass, operationType));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    /**
+     * @return 各实体类型与操作类型的超时次数，键为"实体类全名#操作类型"
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return snapshot;
+    }
+
+    private static String key(Class<?> entityClass, OperationType operationType) {
+        return (entityClass == null ? RAW_SQL : entityClass.getName()) + "#" + operationType;
+    }
+}
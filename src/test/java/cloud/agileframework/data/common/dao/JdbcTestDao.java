@@ -0,0 +1,121 @@
+package cloud.agileframework.data.common.dao;
+
+import cloud.agileframework.data.common.dictionary.DataExtendManager;
+import cloud.agileframework.data.common.shard.ShardingRule;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author 佟盟
+ * 日期 2021/05/07 14:20
+ * 描述 基于JdbcTemplate的最小BaseDao实现，只实现sql方法，字段为实体声明的属性，属性名即字段名，
+ * 不经过仓库，供测试分片、导出等直接执行sql的路径；分片规则为空时实体不分片
+ * @version 1.0
+ * @since 1.0
+ */
+public class JdbcTestDao implements BaseDao {
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final String tableName;
+    private final ShardingRule rule;
+    private final DataExtendManager dictionaryManager;
+
+    public JdbcTestDao(DataSource dataSource, String tableName, ShardingRule rule, DataExtendManager dictionaryManager) {
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.tableName = tableName;
+        this.rule = rule;
+        this.dictionaryManager = dictionaryManager;
+    }
+
+    @Override
+    public DataExtendManager dictionaryManager() {
+        return dictionaryManager;
+    }
+
+    @Override
+    public ShardingRule shardingRule(Class<?> tableClass) {
+        return rule;
+    }
+
+    @Override
+    public <T, ID> PagingAndSortingRepository<T, ID> getRepository(Class<T> tableClass) {
+        throw new UnsupportedOperationException("Repository is not available in jdbc tests");
+    }
+
+    @Override
+    public Connection getConnection() {
+        return DataSourceUtils.getConnection(dataSource);
+    }
+
+    @Override
+    public void releaseConnection(Connection connection) {
+        DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+
+    @Override
+    public <T> Page<T> page(T object, PageRequest pageRequest) {
+        if (rule == null) {
+            throw new UnsupportedOperationException();
+        }
+        return pageOfShards(object, pageRequest);
+    }
+
+    @Override
+    public <T> Page<T> pageBySQL(String sql, PageRequest pageable, Class<T> clazz, Object... parameters) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T> List<T> findBySQL(String sql, Class<T> clazz, Object... parameters) {
+        return jdbc.query(sql, new BeanPropertyRowMapper<>(clazz), parameters);
+    }
+
+    @Override
+    public <T> List<T> findBySQL(String sql, Class<T> clazz, Integer firstResult, Integer maxResults, Object... parameters) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Map<String, Object>> findBySQL(String sql, Object... parameters) {
+        return jdbc.queryForList(sql, parameters);
+    }
+
+    @Override
+    public int updateBySQL(String sql, Object... parameters) {
+        return jdbc.update(sql, parameters);
+    }
+
+    @Override
+    public <T> List<ColumnName> toColumnNames(Class<T> clazz) {
+        List<ColumnName> columns = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            ColumnName column = new ColumnName();
+            column.setMember(field);
+            column.setPrimaryKey(field.isAnnotationPresent(Id.class));
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    @Override
+    public <T> String toTableName(Class<T> clazz) {
+        return tableName;
+    }
+}
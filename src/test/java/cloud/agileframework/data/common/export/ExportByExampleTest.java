@@ -0,0 +1,97 @@
+package cloud.agileframework.data.common.export;
+
+import cloud.agileframework.data.common.dao.BaseDao;
+import cloud.agileframework.data.common.dao.JdbcTestDao;
+import cloud.agileframework.data.common.dictionary.DataExtendManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author 佟盟
+ * 日期 2021/05/07 15:10
+ * 描述 按例子导出测试，字典字段由DataExtendManager的valueCover逐值翻译后写出
+ * @version 1.0
+ * @since 1.0
+ */
+class ExportByExampleTest {
+    private EmbeddedDatabase database;
+    private BaseDao dao;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("export")
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("create table account (id bigint primary key, status varchar(8))");
+        jdbc.update("insert into account (id, status) values (?, ?)", 1L, "1");
+        jdbc.update("insert into account (id, status) values (?, ?)", 2L, "0");
+        dao = new JdbcTestDao(database, "account", null, new StatusDictionary());
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void dictionaryColumnIsTranslated() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = dao.exportByExample(new Account(), Sort.by("id"), ExportFormat.CSV, out);
+        assertEquals(2, rows);
+        assertEquals("ID,STATUS\n1,enabled\n2,disabled\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 只翻译status字段的字典
+     */
+    private static class StatusDictionary implements DataExtendManager {
+        @Override
+        public void cover(Object o) {
+        }
+
+        @Override
+        public UnaryOperator<Object> valueCover(Class<?> tableClass, String column) {
+            if (tableClass != Account.class || !"status".equalsIgnoreCase(column)) {
+                return null;
+            }
+            return v -> "1".equals(v) ? "enabled" : "0".equals(v) ? "disabled" : v;
+        }
+    }
+
+    public static class Account {
+        @Id
+        private Long id;
+        private String status;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+    }
+}
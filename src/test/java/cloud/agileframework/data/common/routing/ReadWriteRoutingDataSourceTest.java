@@ -0,0 +1,109 @@
+package cloud.agileframework.data.common.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author 佟盟
+ * 日期 2021/05/06 10:20
+ * 描述 读写分离路由测试，主库与从库为两个内存数据库，各自的node表记录库名
+ * @version 1.0
+ * @since 1.0
+ */
+class ReadWriteRoutingDataSourceTest {
+    private static final String SQL = "select name from node";
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        DataSourceRouting.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        DataSourceRouting.clear();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readGoesToReplica() {
+        JdbcTemplate jdbc = new JdbcTemplate(router(0));
+        assertEquals("replica", DataSourceRouting.read(() -> jdbc.queryForObject(SQL, String.class)));
+    }
+
+    @Test
+    void writeGoesToPrimary() {
+        JdbcTemplate jdbc = new JdbcTemplate(router(0));
+        assertEquals("primary", DataSourceRouting.write(() -> jdbc.queryForObject(SQL, String.class)));
+    }
+
+    @Test
+    void readOutsideRoutingGoesToPrimary() {
+        JdbcTemplate jdbc = new JdbcTemplate(router(0));
+        assertEquals("primary", jdbc.queryForObject(SQL, String.class));
+    }
+
+    @Test
+    void readAfterWriteSticksToPrimary() {
+        JdbcTemplate jdbc = new JdbcTemplate(router(60_000));
+        DataSourceRouting.write(() -> jdbc.update("update node set name = name"));
+        assertEquals("primary", DataSourceRouting.read(() -> jdbc.queryForObject(SQL, String.class)));
+    }
+
+    @Test
+    void defaultStickyWindowKeepsReadYourWrites() {
+        JdbcTemplate jdbc = new JdbcTemplate(new ReadWriteRoutingDataSource(primary, Collections.singletonList(replica)));
+        DataSourceRouting.write(() -> jdbc.update("update node set name = name"));
+        assertEquals("primary", DataSourceRouting.read(() -> jdbc.queryForObject(SQL, String.class)));
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        DataSource dataSource = router(0).lazy();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(true);
+        assertEquals("replica", transaction.execute(status -> jdbc.queryForObject(SQL, String.class)));
+    }
+
+    @Test
+    void readInWriteTransactionGoesToPrimary() {
+        DataSource dataSource = router(0).lazy();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        assertEquals("primary", transaction.execute(status ->
+                DataSourceRouting.read(() -> jdbc.queryForObject(SQL, String.class))));
+    }
+
+    private ReadWriteRoutingDataSource router(long stickyMillis) {
+        return new ReadWriteRoutingDataSource(primary, Collections.singletonList(replica), LoadBalancer.roundRobin(), stickyMillis);
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("create table node (name varchar(32))");
+        jdbc.update("insert into node (name) values (?)", name);
+        return database;
+    }
+}
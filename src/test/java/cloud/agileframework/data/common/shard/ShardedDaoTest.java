@@ -0,0 +1,167 @@
+package cloud.agileframework.data.common.shard;
+
+import cloud.agileframework.data.common.dao.BaseDao;
+import cloud.agileframework.data.common.dao.JdbcTestDao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author 佟盟
+ * 日期 2021/05/07 14:30
+ * 描述 分片路由测试，三个内存数据库各自保存一个物理表shard_order_{index}，按主键取模分片
+ * @version 1.0
+ * @since 1.0
+ */
+class ShardedDaoTest {
+    private static final int SHARDS = 3;
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+    private BaseDao dao;
+
+    @BeforeEach
+    void setUp() {
+        List<DataSource> targets = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) {
+            EmbeddedDatabase database = database(i);
+            databases.add(database);
+            targets.add(database);
+        }
+        dao = new JdbcTestDao(new ShardingDataSource(targets), "shard_order", new ShardingRule("id", SHARDS, "{table}_{index}"), o -> {
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        databases.forEach(EmbeddedDatabase::shutdown);
+        databases.clear();
+    }
+
+    @Test
+    void saveGoesToShardOfId() {
+        dao.save(order(4L, "d", 40));
+        assertEquals(0, rows(0));
+        assertEquals(1, rows(1));
+        assertEquals(0, rows(2));
+    }
+
+    @Test
+    void findOneReadsFromShardOfId() {
+        new JdbcTemplate(databases.get(2)).update("insert into shard_order_2 (id, name, amount) values (?, ?, ?)", 5L, "e", 50);
+        ShardOrder found = dao.findOne(ShardOrder.class, 5L);
+        assertEquals("e", found.getName());
+        assertNull(dao.findOne(ShardOrder.class, 8L));
+    }
+
+    @Test
+    void deleteRemovesFromShardOfId() {
+        ShardOrder order = order(7L, "g", 70);
+        dao.save(order);
+        dao.delete(order);
+        assertEquals(0, rows(1));
+    }
+
+    @Test
+    void countScattersToAllShards() {
+        saveAll(9);
+        assertEquals(9, dao.countByExample(new ShardOrder()));
+        ShardOrder example = new ShardOrder();
+        example.setId(4L);
+        assertEquals(1, dao.countByExample(example));
+    }
+
+    @Test
+    void sortedPageMergesShards() {
+        saveAll(9);
+        Page<ShardOrder> page = dao.page(new ShardOrder(), 1, 3, Sort.by(Sort.Direction.DESC, "amount"));
+        assertEquals(9, page.getTotalElements());
+        List<Integer> amounts = page.getContent().stream().map(ShardOrder::getAmount).collect(Collectors.toList());
+        // 金额为(id * 5) % 9，降序排列为8..0，第二页为5、4、3
+        assertEquals(Arrays.asList(5, 4, 3), amounts);
+    }
+
+    @Test
+    void pageByClassMergesShards() {
+        saveAll(9);
+        Page<ShardOrder> page = dao.pageByClass(ShardOrder.class, PageRequest.of(2, 4, Sort.by("amount")));
+        assertEquals(9, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertEquals(8, page.getContent().get(0).getAmount());
+    }
+
+    private void saveAll(int count) {
+        for (long id = 0; id < count; id++) {
+            dao.save(order(id, "o" + id, (int) (id * 5 % 9)));
+        }
+    }
+
+    private int rows(int shard) {
+        Integer count = new JdbcTemplate(databases.get(shard)).queryForObject("select count(*) from shard_order_" + shard, Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    private static ShardOrder order(Long id, String name, Integer amount) {
+        ShardOrder order = new ShardOrder();
+        order.setId(id);
+        order.setName(name);
+        order.setAmount(amount);
+        return order;
+    }
+
+    private static EmbeddedDatabase database(int shard) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("shard" + shard)
+                .build();
+        new JdbcTemplate(database).execute("create table shard_order_" + shard + " (id bigint primary key, name varchar(32), amount int)");
+        return database;
+    }
+
+    public static class ShardOrder {
+        @Id
+        private Long id;
+        private String name;
+        private Integer amount;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAmount() {
+            return amount;
+        }
+
+        public void setAmount(Integer amount) {
+            this.amount = amount;
+        }
+    }
+}